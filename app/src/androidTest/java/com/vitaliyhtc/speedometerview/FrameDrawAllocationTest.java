@@ -0,0 +1,148 @@
+package com.vitaliyhtc.speedometerview;
+
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.ViewGroup;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumentation test of allocations on gauge frame path: animation frame of SpeedometerView
+ * followed by drawing of its layers, and frames of {@link GaugeFrameRenderer}. Drawing needs
+ * real Canvas, so it runs on device. Steady state frames must not allocate at all, GC pauses on
+ * small heaps are the main cause of jank.
+ */
+@RunWith(AndroidJUnit4.class)
+@SuppressWarnings("deprecation")
+public class FrameDrawAllocationTest {
+
+    private static final int WARM_UP_FRAMES = 2000;
+    private static final int MEASURED_FRAMES = 1000;
+    private static final long FRAME_NANOS = 16666667L;
+    private static final int MAXIMUM_SPEED = 120;
+    // below blink level, oil can keeps blinking during measurement
+    private static final float ENERGY_LEVEL = 20;
+
+    @Rule
+    public ActivityTestRule<MainActivity> mActivityRule = new ActivityTestRule<>(MainActivity.class);
+
+    private final long[] mTimestamps = new long[1];
+    private final float[] mSpeeds = new float[1];
+    private final float[] mEnergyLevels = new float[1];
+    private long mFrameTimeNanos;
+    private int mAllocatedCount;
+
+    @Test
+    public void viewFrame_doesNotAllocate() throws Exception {
+        assertViewFramesDoNotAllocate(false);
+    }
+
+    @Test
+    public void flatRenderedViewFrame_doesNotAllocate() throws Exception {
+        assertViewFramesDoNotAllocate(true);
+    }
+
+    @Test
+    public void rendererFrame_doesNotAllocate() throws Exception {
+        Context context = InstrumentationRegistry.getTargetContext();
+        GaugeFrameRenderer renderer = new GaugeFrameRenderer(context.getResources(), new GaugeStyle(context), 480, 240);
+        Bitmap bitmap = Bitmap.createBitmap(renderer.getWidth(), renderer.getHeight(), Bitmap.Config.ARGB_8888);
+
+        for (int i = 0; i < WARM_UP_FRAMES; i++) {
+            renderer.draw(bitmap, i % MAXIMUM_SPEED, 100 - i % 100);
+        }
+        startAllocationCount();
+        for (int i = 0; i < MEASURED_FRAMES; i++) {
+            renderer.draw(bitmap, i % MAXIMUM_SPEED, 100 - i % 100);
+        }
+        stopAllocationCount();
+
+        renderer.release();
+        bitmap.recycle();
+        assertEquals("Renderer frames allocated " + mAllocatedCount + " objects", 0, mAllocatedCount);
+    }
+
+    private void assertViewFramesDoNotAllocate(final boolean flatRendering) throws Exception {
+        final Activity activity = mActivityRule.getActivity();
+        final SpeedometerView[] views = new SpeedometerView[1];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                SpeedometerView view = new SpeedometerView(activity);
+                view.setFlatRendering(flatRendering);
+                // Host posts its frame callback once, then frames are stepped by this test
+                // through the same entry host uses.
+                view.setGaugeHost(new GaugeHost());
+                activity.setContentView(view, new ViewGroup.LayoutParams(
+                        ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+                views[0] = view;
+            }
+        });
+        // attached, laid out and shown, so gauge isn't suspended
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                SpeedometerView view = views[0];
+                view.setMetricsEnabled(true);
+                view.setOnSpeedChangeListener(new SpeedometerView.SpeedChangeListener() {
+                    @Override
+                    public void onSpeedChanged(int value) {
+                    }
+                });
+                view.switchOn();
+                Bitmap bitmap = Bitmap.createBitmap(view.getWidth(), view.getHeight(), Bitmap.Config.ARGB_8888);
+                Canvas canvas = new Canvas(bitmap);
+
+                // Looper doesn't run until the end, frames of the whole run are stepped here.
+                for (int i = 0; i < WARM_UP_FRAMES; i++) {
+                    viewFrame(view, canvas, i);
+                }
+                startAllocationCount();
+                for (int i = 0; i < MEASURED_FRAMES; i++) {
+                    viewFrame(view, canvas, i);
+                }
+                stopAllocationCount();
+
+                view.switchOff();
+                bitmap.recycle();
+            }
+        });
+        assertEquals("View frames allocated " + mAllocatedCount + " objects", 0, mAllocatedCount);
+    }
+
+    // Frame of SpeedometerView: sample comes, host steps the gauge, then invalidated layers are drawn.
+    private void viewFrame(SpeedometerView view, Canvas canvas, int frame) {
+        mFrameTimeNanos += FRAME_NANOS;
+        mTimestamps[0] = mFrameTimeNanos;
+        mSpeeds[0] = frame % MAXIMUM_SPEED;
+        mEnergyLevels[0] = ENERGY_LEVEL;
+        view.submitSpeedSamples(mTimestamps, mSpeeds, mEnergyLevels, 0, 1);
+        view.mHostFrameEntry.onFrame(mFrameTimeNanos);
+        view.draw(canvas);
+    }
+
+    private void startAllocationCount() {
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocCount();
+        // fixed overhead of reset and read, it is subtracted from measured count
+        mAllocatedCount = -Debug.getThreadAllocCount();
+        Debug.resetThreadAllocCount();
+    }
+
+    private void stopAllocationCount() {
+        mAllocatedCount += Debug.getThreadAllocCount();
+        Debug.stopAllocCounting();
+    }
+}
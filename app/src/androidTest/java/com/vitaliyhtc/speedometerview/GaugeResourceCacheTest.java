@@ -0,0 +1,41 @@
+package com.vitaliyhtc.speedometerview;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.os.Build;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.annotation.UiThreadTest;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Instrumentation test of shared gauge resources, decoding needs real BitmapFactory.
+ */
+@RunWith(AndroidJUnit4.class)
+public class GaugeResourceCacheTest {
+
+    @Test
+    @UiThreadTest
+    public void oilCanBitmap_memoryIsReusedForOtherSizeAfterRelease() throws Exception {
+        assumeTrue(Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT);
+        Resources resources = InstrumentationRegistry.getTargetContext().getResources();
+
+        GaugeResourceCache.OilCanBitmap large = GaugeResourceCache.acquireOilCanBitmap(resources, 120, 80);
+        Bitmap largeBitmap = large.bitmap;
+        assertTrue(largeBitmap.isMutable());
+
+        // resize: released icon lends its memory to the smaller one
+        GaugeResourceCache.releaseOilCanBitmap(large, true);
+        GaugeResourceCache.OilCanBitmap small = GaugeResourceCache.acquireOilCanBitmap(resources, 60, 40);
+
+        assertSame(largeBitmap, small.bitmap);
+        assertEquals(60, small.bitmap.getWidth(), 1);
+        assertEquals(40, small.bitmap.getHeight(), 1);
+        GaugeResourceCache.releaseOilCanBitmap(small, false);
+    }
+}
@@ -0,0 +1,83 @@
+package com.vitaliyhtc.speedometerview;
+
+/**
+ * Chooses rendering quality level of gauge by recent frame times. Level steps down when
+ * animation loop misses frames and steps back up after a while without missed frames.
+ * Levels are cumulative, each one keeps savings of the previous levels:
+ * <ul>
+ * <li>{@link #LEVEL_FULL} - everything is drawn and animated</li>
+ * <li>{@link #LEVEL_NO_BLINK} - oil can doesn't blink on low energy level</li>
+ * <li>{@link #LEVEL_NO_ANTI_ALIAS} - arrow and sectors are drawn without antialiasing</li>
+ * <li>{@link #LEVEL_HALF_TICK_RATE} - animation loop is stepped on every second frame, frames
+ * between aren't requested at all</li>
+ * </ul>
+ * Nothing is allocated, must be used on UI thread only.
+ */
+final class AdaptiveQualityController {
+
+    static final int LEVEL_FULL = 0;
+    static final int LEVEL_NO_BLINK = 1;
+    static final int LEVEL_NO_ANTI_ALIAS = 2;
+    static final int LEVEL_HALF_TICK_RATE = 3;
+
+    // frames are judged in windows, level steps down on too many missed frames in window
+    static final int WINDOW_FRAMES = 30;
+    static final int STEP_DOWN_MISSED_FRAMES = 3;
+    // stepping up is slower than down, so level doesn't flap on the edge of budget
+    static final int STEP_UP_CLEAN_WINDOWS = 4;
+
+    private int mLevel = LEVEL_FULL;
+    private int mWindowFrames;
+    private int mWindowMissedFrames;
+    private int mCleanWindows;
+
+    int getLevel() {
+        return mLevel;
+    }
+
+    /**
+     * @param frameDeltaNanos          time since previous tick of running animation loop
+     * @param expectedFrameDeltaNanos  intended time between ticks at current level
+     * @return true if level changed
+     */
+    boolean onFrame(long frameDeltaNanos, long expectedFrameDeltaNanos){
+        mWindowFrames++;
+        // half of interval is tolerated as vsync jitter
+        if (frameDeltaNanos > expectedFrameDeltaNanos + expectedFrameDeltaNanos / 2) {
+            mWindowMissedFrames++;
+        }
+
+        if (mWindowMissedFrames >= STEP_DOWN_MISSED_FRAMES) {
+            startWindow();
+            mCleanWindows = 0;
+            if (mLevel < LEVEL_HALF_TICK_RATE) {
+                mLevel++;
+                return true;
+            }
+            return false;
+        }
+        if (mWindowFrames < WINDOW_FRAMES) {
+            return false;
+        }
+
+        mCleanWindows = mWindowMissedFrames == 0 ? mCleanWindows + 1 : 0;
+        startWindow();
+        if (mCleanWindows >= STEP_UP_CLEAN_WINDOWS && mLevel > LEVEL_FULL) {
+            mCleanWindows = 0;
+            mLevel--;
+            return true;
+        }
+        return false;
+    }
+
+    private void startWindow(){
+        mWindowFrames = 0;
+        mWindowMissedFrames = 0;
+    }
+
+    void reset(){
+        mLevel = LEVEL_FULL;
+        mCleanWindows = 0;
+        startWindow();
+    }
+}
@@ -0,0 +1,187 @@
+package com.vitaliyhtc.speedometerview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * Arrow and sectors before and after it, the only layer which changes with speed.
+ */
+class ArrowAndSectorsLayerRenderer implements GaugeLayerRenderer {
+
+    private static final int ARROW_CENTER_RADIUS_FROM_VIEW_WIDTH_DIVIDER = 20;
+    private static final int ARROW_WIDTH_FROM_VIEW_WIDTH_DIVIDER = 40;
+
+    private final Paint mArrowCenterPaint;
+    private final Paint mArrowPaint;
+    private final Path mArrowPath;
+    private final Paint mSectorBeforeArrowPaint;
+    private final Paint mSectorAfterArrowPaint;
+    private final RectF mSectorOval;
+    private final Paint mArrowSpritePaint;
+    private final Rect mBounds;
+
+    private int mWidth;
+    private int mHeight;
+    private int mCenterX;
+    private int mCenterY;
+    private float mArrowCenterRadius;
+
+    // Arrow is built once at zero angle (pointing left), frames only rotate canvas.
+    private boolean isGeometryDirty;
+
+    // Prerasterized arrow, rotated bitmap is cheaper than path for hardware renderer.
+    private boolean isArrowSpriteEnabled;
+    private Bitmap mArrowSprite;
+    private float mArrowSpriteLeft;
+    private float mArrowSpriteTop;
+
+    ArrowAndSectorsLayerRenderer() {
+        mArrowCenterPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mArrowPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mArrowPath = new Path();
+        mSectorBeforeArrowPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mSectorAfterArrowPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mSectorOval = new RectF();
+        mArrowSpritePaint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
+        mBounds = new Rect();
+        isGeometryDirty = true;
+
+        mArrowCenterPaint.setStyle(Paint.Style.FILL);
+        mArrowPaint.setStyle(Paint.Style.FILL);
+        mSectorBeforeArrowPaint.setStyle(Paint.Style.STROKE);
+        mSectorAfterArrowPaint.setStyle(Paint.Style.STROKE);
+    }
+
+    // colors, radiuses or maximum speed changed
+    void invalidateGeometry(){
+        isGeometryDirty = true;
+    }
+
+    /**
+     * @param arrowSpriteEnabled if true, arrow is drawn as rotated bitmap instead of path
+     */
+    void setArrowSpriteEnabled(boolean arrowSpriteEnabled){
+        isArrowSpriteEnabled = arrowSpriteEnabled;
+        isGeometryDirty = true;
+    }
+
+    /**
+     * @param antiAlias false to draw arrow and sectors faster with jagged edges
+     */
+    void setAntiAlias(boolean antiAlias){
+        mArrowCenterPaint.setAntiAlias(antiAlias);
+        mArrowPaint.setAntiAlias(antiAlias);
+        mSectorBeforeArrowPaint.setAntiAlias(antiAlias);
+        mSectorAfterArrowPaint.setAntiAlias(antiAlias);
+        mArrowSpritePaint.setAntiAlias(antiAlias);
+        mArrowSpritePaint.setFilterBitmap(antiAlias);
+        isGeometryDirty = true;
+    }
+
+    @Override
+    public void setSize(int width, int height) {
+        mWidth = width;
+        mHeight = height;
+        mCenterX = mWidth/2;
+        mCenterY = mWidth/2;
+        isGeometryDirty = true;
+    }
+
+    private void updateGeometry(GaugeStyle style){
+        float strokeWidth = style.getExternalSectorRadius() - style.getInternalSectorRadius();
+        float radius = style.getExternalSectorRadius();
+        mSectorOval.set(mCenterX-radius+strokeWidth/2, mCenterY - radius+strokeWidth/2, mCenterX+radius-strokeWidth/2, mCenterY+radius-strokeWidth/2);
+
+        mArrowCenterPaint.setColor(style.getArrowColor());
+        mArrowPaint.setColor(style.getArrowColor());
+        mSectorBeforeArrowPaint.setColor(style.getSectorBeforeArrowColor());
+        mSectorAfterArrowPaint.setColor(style.getSectorAfterArrowColor());
+        mSectorBeforeArrowPaint.setStrokeWidth(strokeWidth);
+        mSectorAfterArrowPaint.setStrokeWidth(strokeWidth);
+        mArrowCenterRadius = mWidth / ARROW_CENTER_RADIUS_FROM_VIEW_WIDTH_DIVIDER;
+
+        float arrowRadius = style.getArrowRadius();
+        mArrowPath.reset();
+        mArrowPath.moveTo(mCenterX, mCenterY - mWidth/ARROW_WIDTH_FROM_VIEW_WIDTH_DIVIDER);
+        mArrowPath.lineTo(mCenterX-arrowRadius, mCenterY - mWidth/(ARROW_WIDTH_FROM_VIEW_WIDTH_DIVIDER*2));
+        mArrowPath.lineTo(mCenterX-arrowRadius, mCenterY + mWidth/(ARROW_WIDTH_FROM_VIEW_WIDTH_DIVIDER*2));
+        mArrowPath.lineTo(mCenterX, mCenterY + mWidth/ARROW_WIDTH_FROM_VIEW_WIDTH_DIVIDER);
+        mArrowPath.close();
+
+        // 2px margin for antialiasing, arrow and sectors are in upper half of circle
+        int boundsRadius = (int) Math.ceil(Math.max(Math.max(arrowRadius, radius), mArrowCenterRadius)) + 2;
+        int boundsBottom = (int) Math.ceil(Math.max(mArrowCenterRadius, mWidth/ARROW_WIDTH_FROM_VIEW_WIDTH_DIVIDER)) + 2;
+        mBounds.set(mCenterX - boundsRadius, mCenterY - boundsRadius, mCenterX + boundsRadius, mCenterY + boundsBottom);
+        if (!mBounds.intersect(0, 0, mWidth, mHeight)) {
+            mBounds.setEmpty();
+        }
+
+        updateArrowSprite(arrowRadius);
+        isGeometryDirty = false;
+    }
+
+    private void updateArrowSprite(float arrowRadius){
+        if (mArrowSprite != null) {
+            mArrowSprite.recycle();
+            mArrowSprite = null;
+        }
+        if (!isArrowSpriteEnabled || mWidth <= 0) {
+            return;
+        }
+        // 1px margin keeps antialiased edges inside of bitmap
+        mArrowSpriteLeft = (float) Math.floor(mCenterX - arrowRadius) - 1;
+        mArrowSpriteTop = mCenterY - mWidth/ARROW_WIDTH_FROM_VIEW_WIDTH_DIVIDER - 1;
+        int spriteWidth = (int) Math.ceil(mCenterX - mArrowSpriteLeft) + 1;
+        int spriteHeight = 2 * (mWidth/ARROW_WIDTH_FROM_VIEW_WIDTH_DIVIDER) + 2;
+        mArrowSprite = Bitmap.createBitmap(spriteWidth, spriteHeight, Bitmap.Config.ARGB_8888);
+        Canvas spriteCanvas = new Canvas(mArrowSprite);
+        spriteCanvas.translate(-mArrowSpriteLeft, -mArrowSpriteTop);
+        spriteCanvas.drawPath(mArrowPath, mArrowPaint);
+    }
+
+    /**
+     * @return area of layer which can be drawn at any speed, it must not be modified
+     */
+    Rect getBounds(GaugeStyle style){
+        if (isGeometryDirty) {
+            updateGeometry(style);
+        }
+        return mBounds;
+    }
+
+    static float getArrowAngleDegrees(GaugeStyle style, float speed){
+        return (float) SpeedometerMath.radiansToDegrees(
+                SpeedometerMath.getArrowAngle(speed, style.getMaximumSpeedometerSpeed(), style.getNotchesCount()));
+    }
+
+    @Override
+    public void draw(Canvas canvas, GaugeStyle style, float speed, float energyLevel) {
+        drawAtAngle(canvas, style, getArrowAngleDegrees(style, speed));
+    }
+
+    /**
+     * @param angle arrow angle in degrees, 0 - zero speed, 180 - maximum speed
+     */
+    void drawAtAngle(Canvas canvas, GaugeStyle style, float angle) {
+        if (isGeometryDirty) {
+            updateGeometry(style);
+        }
+
+        canvas.drawArc(mSectorOval, 180, angle, false, mSectorBeforeArrowPaint);
+        canvas.drawArc(mSectorOval, 180+angle, 180-angle, false, mSectorAfterArrowPaint);
+        canvas.drawCircle(mCenterX, mCenterY, mArrowCenterRadius, mArrowCenterPaint);
+
+        int saveCount = canvas.save();
+        canvas.rotate(angle, mCenterX, mCenterY);
+        if (mArrowSprite != null) {
+            canvas.drawBitmap(mArrowSprite, mArrowSpriteLeft, mArrowSpriteTop, mArrowSpritePaint);
+        } else {
+            canvas.drawPath(mArrowPath, mArrowPaint);
+        }
+        canvas.restoreToCount(saveCount);
+    }
+}
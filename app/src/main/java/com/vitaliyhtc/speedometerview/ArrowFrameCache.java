@@ -0,0 +1,135 @@
+package com.vitaliyhtc.speedometerview;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+
+/**
+ * Rendered frames of arrow and sectors layer keyed by arrow angle quantized to
+ * {@link #ANGLE_STEP_DEGREES}. Arrow at already seen angle is drawn with one drawBitmap()
+ * instead of arcs and path. Frames cover only the area arrow and sectors can take.
+ * <p>
+ * Least recently used frames are evicted to stay in byte budget, and on memory pressure when
+ * cache is registered with {@link android.content.Context#registerComponentCallbacks}.
+ * Must be used on UI thread only.
+ */
+final class ArrowFrameCache implements ComponentCallbacks2 {
+
+    static final float ANGLE_STEP_DEGREES = 0.25f;
+    static final int ANGLE_STEPS_COUNT = (int) (180 / ANGLE_STEP_DEGREES) + 1;
+
+    private final FrameLruCache<Bitmap> mFrames;
+    // Last evicted frame is reused for the next one, they all have the same size.
+    private Bitmap mSpareFrame;
+    private boolean isReleasingMemory;
+    private final Canvas mFrameCanvas = new Canvas();
+
+    ArrowFrameCache(long maxSizeBytes) {
+        mFrames = new FrameLruCache<Bitmap>(ANGLE_STEPS_COUNT, maxSizeBytes) {
+            @Override
+            protected void onEntryRemoved(Bitmap frame) {
+                if (mSpareFrame == null && !isReleasingMemory) {
+                    mSpareFrame = frame;
+                } else {
+                    frame.recycle();
+                }
+            }
+        };
+    }
+
+    void setMaxSizeBytes(long maxSizeBytes) {
+        mFrames.setMaxSizeBytes(maxSizeBytes);
+    }
+
+    long getMaxSizeBytes() {
+        return mFrames.getMaxSizeBytes();
+    }
+
+    void draw(Canvas canvas, ArrowAndSectorsLayerRenderer renderer, GaugeStyle style, float speed) {
+        float angle = ArrowAndSectorsLayerRenderer.getArrowAngleDegrees(style, speed);
+        int step = getAngleStep(angle);
+
+        Rect bounds = renderer.getBounds(style);
+        Bitmap frame = mFrames.get(step);
+        if (frame == null) {
+            long frameSizeBytes = 4L * bounds.width() * bounds.height();
+            if (bounds.isEmpty() || frameSizeBytes > mFrames.getMaxSizeBytes()) {
+                renderer.drawAtAngle(canvas, style, angle);
+                return;
+            }
+            frame = obtainFrame(bounds.width(), bounds.height());
+            mFrameCanvas.setBitmap(frame);
+            int saveCount = mFrameCanvas.save();
+            mFrameCanvas.translate(-bounds.left, -bounds.top);
+            renderer.drawAtAngle(mFrameCanvas, style, step * ANGLE_STEP_DEGREES);
+            mFrameCanvas.restoreToCount(saveCount);
+            mFrameCanvas.setBitmap(null);
+            mFrames.put(step, frame, frame.getByteCount());
+        }
+        canvas.drawBitmap(frame, bounds.left, bounds.top, null);
+    }
+
+    /**
+     * @param angle arrow angle in degrees, 0 - zero speed, 180 - maximum speed
+     * @return key of frame the arrow at this angle is drawn with, in [0, ANGLE_STEPS_COUNT)
+     */
+    static int getAngleStep(float angle) {
+        int step = Math.round(angle / ANGLE_STEP_DEGREES);
+        if (step < 0) {
+            return 0;
+        } else if (step >= ANGLE_STEPS_COUNT) {
+            return ANGLE_STEPS_COUNT - 1;
+        }
+        return step;
+    }
+
+    private Bitmap obtainFrame(int width, int height) {
+        Bitmap frame = mSpareFrame;
+        mSpareFrame = null;
+        if (frame != null && frame.getWidth() == width && frame.getHeight() == height) {
+            frame.eraseColor(0);
+            return frame;
+        }
+        if (frame != null) {
+            frame.recycle();
+        }
+        return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    /**
+     * Drops all frames, e.g. when size or style changed or gauge is detached.
+     */
+    void clear() {
+        trimToSize(0);
+    }
+
+    private void trimToSize(long sizeBytes) {
+        isReleasingMemory = true;
+        mFrames.trimToSize(sizeBytes);
+        isReleasingMemory = false;
+        if (mSpareFrame != null) {
+            mSpareFrame.recycle();
+            mSpareFrame = null;
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            clear();
+        } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            trimToSize(mFrames.getSizeBytes() / 2);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        clear();
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+}
@@ -0,0 +1,146 @@
+package com.vitaliyhtc.speedometerview;
+
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Typeface;
+
+/**
+ * Outer arc, notches and digits. They don't depend on speed and energy level, so the layer
+ * is usually drawn once into bitmap and only copied on every frame.
+ */
+class DialLayerRenderer implements GaugeLayerRenderer {
+
+    static final int STROKE_WIDTH_FROM_VIEW_WIDTH_DIVIDER = 72;
+    private static final int OUTER_CIRCLE_MARGIN_TO_STROKE_WIDTH_MULTIPLIER = 2;
+    private static final int NOTCHING_LENGTH_TO_STROKE_WIDTH_MULTIPLIER = 3;
+    private static final int DIGITS_SIZE_FROM_VIEW_WIDTH_DIVIDER = 24;
+
+    private final Paint mOuterCirclePaint;
+    private final Paint mNotchesPaint;
+    private final Path mNotchPath;
+    private final Matrix mNotchesMatrix;
+    private final Paint mDigitsPaint;
+    private final Rect mDigitsBoundRect;
+    private final Path mDigitPath;
+    private final float[] mDigitsPosition;
+    private final Matrix mDigitsMatrix;
+    private final RectF mOuterCircleOval;
+
+    // All notches and digits glyph outlines, already at their places on dial. Built once per
+    // size or maximum speed change, so drawing dial doesn't shape text.
+    private final Path mNotchesPath;
+    private final Path mDigitsPath;
+    private int mPathsMaximumSpeed;
+    private boolean isPathsDirty;
+
+    private int mWidth;
+    private int mHeight;
+    private int mCenterX;
+    private int mCenterY;
+
+    private int mStrokeWidth;
+    private int mRadius;
+    private int mNotchingLength;
+
+    DialLayerRenderer() {
+        mOuterCirclePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mNotchesPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mNotchPath = new Path();
+        mNotchesMatrix = new Matrix();
+        mDigitsPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mDigitsBoundRect = new Rect();
+        mDigitPath = new Path();
+        mDigitsPosition = new float[2];
+        mDigitsMatrix = new Matrix();
+        mOuterCircleOval = new RectF();
+        mNotchesPath = new Path();
+        mDigitsPath = new Path();
+        isPathsDirty = true;
+
+        mOuterCirclePaint.setStyle(Paint.Style.STROKE);
+        mNotchesPaint.setStyle(Paint.Style.FILL);
+        mDigitsPaint.setStyle(Paint.Style.FILL);
+        mDigitsPaint.setTypeface(Typeface.create(Typeface.DEFAULT, Typeface.BOLD));
+    }
+
+    @Override
+    public void setSize(int width, int height) {
+        mWidth = width;
+        mHeight = height;
+        mCenterX = mWidth / 2;
+        mCenterY = mWidth / 2;
+
+        mStrokeWidth = mWidth / STROKE_WIDTH_FROM_VIEW_WIDTH_DIVIDER;
+        mOuterCirclePaint.setStrokeWidth(mStrokeWidth);
+        mDigitsPaint.setTextSize(mWidth * 1f / DIGITS_SIZE_FROM_VIEW_WIDTH_DIVIDER);
+
+        mRadius = mWidth/2 - OUTER_CIRCLE_MARGIN_TO_STROKE_WIDTH_MULTIPLIER * mStrokeWidth;
+        mNotchingLength = NOTCHING_LENGTH_TO_STROKE_WIDTH_MULTIPLIER * mStrokeWidth;
+        mOuterCircleOval.set(mCenterX-mRadius, mCenterY - mRadius, mCenterX+mRadius, mCenterY+mRadius);
+        isPathsDirty = true;
+    }
+
+    private void updatePaths(int maximumSpeedometerSpeed){
+        int revalidatedSpeedNotchingInterval = SpeedometerMath.getRevalidatedSpeedNotchingInterval(maximumSpeedometerSpeed);
+        int notchingsCount = maximumSpeedometerSpeed/revalidatedSpeedNotchingInterval; //you need add 1 for angle calculation
+        double anglePart = Math.PI/(notchingsCount+1);
+
+        mNotchesPath.reset();
+        mDigitsPath.reset();
+
+        mNotchPath.reset();
+        mNotchPath.addRect(
+                mCenterX - mRadius,
+                mCenterY - mStrokeWidth/2,
+                mCenterX - mRadius + mNotchingLength,
+                mCenterY + mStrokeWidth/2,
+                Path.Direction.CW);
+        mNotchesMatrix.reset();
+        mNotchesMatrix.setRotate((float)SpeedometerMath.radiansToDegrees(anglePart), mCenterX, mCenterY);
+
+        for (int i = 1; i <= notchingsCount; i++) {
+            double alpha = anglePart * i;
+
+            mNotchPath.transform(mNotchesMatrix);
+            mNotchesPath.addPath(mNotchPath);
+
+            String digitsString = Integer.toString(revalidatedSpeedNotchingInterval * i);
+            mDigitsPaint.getTextBounds(digitsString, 0, digitsString.length(), mDigitsBoundRect);
+            float digitsWidth = mDigitsPaint.measureText(digitsString);
+            float digitsHeight = mDigitsBoundRect.height();
+
+            // Digits stay horizontal, their center is moved along the circle: rotated around
+            // gauge center from the point next to the first notch.
+            int digitsPositionShift = mCenterX - mRadius + mNotchingLength + mStrokeWidth;
+            mDigitsPosition[0] = digitsPositionShift + digitsWidth/2;
+            mDigitsPosition[1] = mCenterY;
+            mDigitsMatrix.setRotate((float)SpeedometerMath.radiansToDegrees(alpha), mCenterX, mCenterY);
+            mDigitsMatrix.mapPoints(mDigitsPosition);
+
+            mDigitsPaint.getTextPath(digitsString, 0, digitsString.length(),
+                    mDigitsPosition[0] - digitsWidth/2, mDigitsPosition[1] + digitsHeight/2, mDigitPath);
+            mDigitsPath.addPath(mDigitPath);
+        }
+        mPathsMaximumSpeed = maximumSpeedometerSpeed;
+        isPathsDirty = false;
+    }
+
+    @Override
+    public void draw(Canvas canvas, GaugeStyle style, float speed, float energyLevel) {
+        if (isPathsDirty || mPathsMaximumSpeed != style.getMaximumSpeedometerSpeed()) {
+            updatePaths(style.getMaximumSpeedometerSpeed());
+        }
+
+        mOuterCirclePaint.setColor(style.getOuterCircleColor());
+        mNotchesPaint.setColor(style.getOuterCircleColor());
+        mDigitsPaint.setColor(style.getDigitsColor());
+
+        canvas.drawArc(mOuterCircleOval, 180, 180, false, mOuterCirclePaint);
+        canvas.drawPath(mNotchesPath, mNotchesPaint);
+        canvas.drawPath(mDigitsPath, mDigitsPaint);
+    }
+}
@@ -0,0 +1,106 @@
+package com.vitaliyhtc.speedometerview;
+
+/**
+ * Histogram of durations with power of two buckets in microseconds: bucket 0 holds durations
+ * below 1 us, bucket i holds durations in [2^(i-1), 2^i) us, the last bucket holds everything
+ * longer. Counts are kept in primitive array, nothing is allocated after construction.
+ * <p>
+ * Not thread safe. Histograms of {@link GaugeMetrics} are written on UI thread and must be read
+ * there too, e.g. copied with {@link #copyTo(DurationHistogram)} into histogram of telemetry.
+ */
+public class DurationHistogram {
+
+    public static final int BUCKET_COUNT = 24;
+
+    private final long[] mBuckets = new long[BUCKET_COUNT];
+    private long mCount;
+    private long mTotalNanos;
+    private long mMaximumNanos;
+
+    public void record(long durationNanos){
+        if (durationNanos < 0) {
+            durationNanos = 0;
+        }
+        mBuckets[getBucketIndex(durationNanos)]++;
+        mCount++;
+        mTotalNanos += durationNanos;
+        if (durationNanos > mMaximumNanos) {
+            mMaximumNanos = durationNanos;
+        }
+    }
+
+    static int getBucketIndex(long durationNanos){
+        long micros = durationNanos / 1000;
+        int index = 64 - Long.numberOfLeadingZeros(micros);
+        return index < BUCKET_COUNT ? index : BUCKET_COUNT - 1;
+    }
+
+    /**
+     * @return exclusive upper bound of bucket in nanoseconds, {@link Long#MAX_VALUE} for the last one
+     */
+    public static long getBucketUpperBoundNanos(int index){
+        if (index < 0 || index >= BUCKET_COUNT) {
+            throw new IllegalArgumentException("Bucket index must be in [0, " + BUCKET_COUNT + "), found " + index);
+        }
+        return index == BUCKET_COUNT - 1 ? Long.MAX_VALUE : (1L << index) * 1000;
+    }
+
+    public long getBucketCount(int index){
+        return mBuckets[index];
+    }
+
+    public long getCount() {
+        return mCount;
+    }
+
+    public long getTotalNanos() {
+        return mTotalNanos;
+    }
+
+    public long getMaximumNanos() {
+        return mMaximumNanos;
+    }
+
+    public long getAverageNanos(){
+        return mCount == 0 ? 0 : mTotalNanos / mCount;
+    }
+
+    /**
+     * @param percentile in [0, 100]
+     * @return upper bound of bucket the percentile falls into, but not more than maximum
+     *         recorded duration, 0 if histogram is empty
+     */
+    public long getPercentileNanos(float percentile){
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be in [0, 100], found " + percentile);
+        }
+        if (mCount == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(mCount * percentile / 100);
+        long counted = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counted += mBuckets[i];
+            if (counted >= rank && counted > 0) {
+                return Math.min(getBucketUpperBoundNanos(i), mMaximumNanos);
+            }
+        }
+        return mMaximumNanos;
+    }
+
+    public void copyTo(DurationHistogram histogram){
+        System.arraycopy(mBuckets, 0, histogram.mBuckets, 0, BUCKET_COUNT);
+        histogram.mCount = mCount;
+        histogram.mTotalNanos = mTotalNanos;
+        histogram.mMaximumNanos = mMaximumNanos;
+    }
+
+    public void reset(){
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mBuckets[i] = 0;
+        }
+        mCount = 0;
+        mTotalNanos = 0;
+        mMaximumNanos = 0;
+    }
+}
@@ -0,0 +1,154 @@
+package com.vitaliyhtc.speedometerview;
+
+/**
+ * LRU cache with small int keys in range [0, key count), e.g. quantized arrow angles, and
+ * size budget in bytes. Entries are kept in arrays indexed by key and linked into recency list
+ * by indexes, so lookups and updates don't allocate and keys aren't boxed.
+ * <p>
+ * Not thread safe.
+ */
+class FrameLruCache<V> {
+
+    private static final int NONE = -1;
+
+    private final Object[] mValues;
+    private final int[] mSizes;
+    // recency list, head is the most recently used entry
+    private final int[] mPrevious;
+    private final int[] mNext;
+    private int mHead = NONE;
+    private int mTail = NONE;
+
+    private long mMaxSizeBytes;
+    private long mSizeBytes;
+    private int mCount;
+
+    FrameLruCache(int keyCount, long maxSizeBytes) {
+        if (keyCount <= 0) {
+            throw new IllegalArgumentException("Key count must be positive, found " + keyCount);
+        }
+        if (maxSizeBytes < 0) {
+            throw new IllegalArgumentException("Maximum size must not be negative, found " + maxSizeBytes);
+        }
+        mValues = new Object[keyCount];
+        mSizes = new int[keyCount];
+        mPrevious = new int[keyCount];
+        mNext = new int[keyCount];
+        mMaxSizeBytes = maxSizeBytes;
+    }
+
+    /**
+     * @return cached value, it becomes the most recently used one, or null
+     */
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        V value = (V) mValues[key];
+        if (value != null && key != mHead) {
+            unlink(key);
+            linkFirst(key);
+        }
+        return value;
+    }
+
+    /**
+     * Adds or replaces value and evicts least recently used entries while size is over budget.
+     * Value bigger than the whole budget is not cached, it is passed to
+     * {@link #onEntryRemoved(Object)} at once.
+     */
+    void put(int key, V value, int sizeBytes) {
+        remove(key);
+        if (sizeBytes > mMaxSizeBytes) {
+            onEntryRemoved(value);
+            return;
+        }
+        mValues[key] = value;
+        mSizes[key] = sizeBytes;
+        mSizeBytes += sizeBytes;
+        mCount++;
+        linkFirst(key);
+        trimToSize(mMaxSizeBytes);
+    }
+
+    void remove(int key) {
+        Object value = mValues[key];
+        if (value == null) {
+            return;
+        }
+        unlink(key);
+        mValues[key] = null;
+        mSizeBytes -= mSizes[key];
+        mCount--;
+        onEntryRemovedInternal(value);
+    }
+
+    /**
+     * Evicts least recently used entries until size is not bigger than given one.
+     */
+    void trimToSize(long sizeBytes) {
+        while (mSizeBytes > sizeBytes && mTail != NONE) {
+            remove(mTail);
+        }
+    }
+
+    void clear() {
+        trimToSize(0);
+    }
+
+    void setMaxSizeBytes(long maxSizeBytes) {
+        if (maxSizeBytes < 0) {
+            throw new IllegalArgumentException("Maximum size must not be negative, found " + maxSizeBytes);
+        }
+        mMaxSizeBytes = maxSizeBytes;
+        trimToSize(maxSizeBytes);
+    }
+
+    long getMaxSizeBytes() {
+        return mMaxSizeBytes;
+    }
+
+    long getSizeBytes() {
+        return mSizeBytes;
+    }
+
+    int getCount() {
+        return mCount;
+    }
+
+    /**
+     * Called for every evicted, replaced or removed value, e.g. to recycle or reuse bitmap.
+     */
+    protected void onEntryRemoved(V value) {
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onEntryRemovedInternal(Object value) {
+        onEntryRemoved((V) value);
+    }
+
+    private void linkFirst(int key) {
+        mPrevious[key] = NONE;
+        mNext[key] = mHead;
+        if (mHead != NONE) {
+            mPrevious[mHead] = key;
+        }
+        mHead = key;
+        if (mTail == NONE) {
+            mTail = key;
+        }
+    }
+
+    private void unlink(int key) {
+        int previous = mPrevious[key];
+        int next = mNext[key];
+        if (previous != NONE) {
+            mNext[previous] = next;
+        } else {
+            mHead = next;
+        }
+        if (next != NONE) {
+            mPrevious[next] = previous;
+        } else {
+            mTail = previous;
+        }
+    }
+}
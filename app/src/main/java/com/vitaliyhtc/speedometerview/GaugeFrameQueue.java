@@ -0,0 +1,58 @@
+package com.vitaliyhtc.speedometerview;
+
+import java.util.ArrayList;
+
+/**
+ * Gauges waiting for the next frame of {@link GaugeHost}. Every entry is stepped at most once
+ * per frame, however many times it was requested and cancelled before the frame.
+ * Doesn't depend on Android classes, must be used on one thread (UI thread).
+ */
+final class GaugeFrameQueue {
+
+    /**
+     * Frame requests state of one gauge.
+     */
+    abstract static class Entry {
+        // entry must be stepped on the next frame
+        boolean isRequested;
+        // entry is in the list of the next frame, cancelled entries stay there until frame comes
+        boolean isQueued;
+
+        abstract void onFrame(long frameTimeNanos);
+    }
+
+    // Entries requested next frame are collected in one list while previous ones are stepped
+    // from the other, so entries can be requested while being stepped.
+    private ArrayList<Entry> mRequestedEntries = new ArrayList<>();
+    private ArrayList<Entry> mSteppedEntries = new ArrayList<>();
+
+    void request(Entry entry){
+        entry.isRequested = true;
+        if (!entry.isQueued) {
+            entry.isQueued = true;
+            mRequestedEntries.add(entry);
+        }
+    }
+
+    // Entry stays in the list, it is skipped when frame comes.
+    void cancel(Entry entry){
+        entry.isRequested = false;
+    }
+
+    void dispatchFrame(long frameTimeNanos){
+        ArrayList<Entry> entries = mRequestedEntries;
+        mRequestedEntries = mSteppedEntries;
+        mSteppedEntries = entries;
+
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            // requested again while being stepped, entry goes into the next frame list
+            entry.isQueued = false;
+            if (entry.isRequested) {
+                entry.isRequested = false;
+                entry.onFrame(frameTimeNanos);
+            }
+        }
+        entries.clear();
+    }
+}
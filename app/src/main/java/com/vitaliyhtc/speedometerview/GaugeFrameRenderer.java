@@ -0,0 +1,143 @@
+package com.vitaliyhtc.speedometerview;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+/**
+ * Draws gauge frames without a view, e.g. for reports, notification thumbnails or video export.
+ * Frames look the same as {@link SpeedometerView} of the same style and size, oil can color is
+ * chosen by energy level without transition and blinking.
+ * <p>
+ * Renderer doesn't use UI thread and shares no mutable state with views or other renderers.
+ * One instance must be used from one thread at a time, create one renderer per worker thread
+ * to draw frames in parallel. Call {@link #release()} when it is not needed anymore.
+ */
+public class GaugeFrameRenderer {
+
+    private final GaugeStyle mStyle;
+    private final int mWidth;
+    private final int mHeight;
+
+    private final DialLayerRenderer mDialLayerRenderer = new DialLayerRenderer();
+    private final OilCanAndLevelLayerRenderer mOilCanAndLevelLayerRenderer = new OilCanAndLevelLayerRenderer();
+    private final ArrowAndSectorsLayerRenderer mArrowAndSectorsLayerRenderer = new ArrowAndSectorsLayerRenderer();
+
+    // gauge area inside of frame, same as SpeedometerView lays out
+    private final int mGaugeLeft;
+    private final int mGaugeTop;
+
+    // dial doesn't change between frames, it is drawn once
+    private Bitmap mDialBitmap;
+    private Bitmap mOilCanBitmap;
+    private final Canvas mCanvas = new Canvas();
+
+    /**
+     * @param resources used to decode oil can icon
+     * @param style     copied, later changes of it don't affect renderer
+     * @param width     frame width in pixels
+     * @param height    frame height in pixels
+     */
+    public GaugeFrameRenderer(Resources resources, GaugeStyle style, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Frame size must be positive, found " + width + "x" + height);
+        }
+        mStyle = new GaugeStyle(style);
+        mWidth = width;
+        mHeight = height;
+
+        int gaugeWidth;
+        int gaugeHeight;
+        if (height >= width / 2) {
+            gaugeWidth = width;
+            gaugeHeight = width / 2;
+            mGaugeLeft = 0;
+        } else {
+            gaugeWidth = height * 2;
+            gaugeHeight = height;
+            mGaugeLeft = (width - gaugeWidth) / 2;
+        }
+        mGaugeTop = 0;
+
+        mDialLayerRenderer.setSize(gaugeWidth, gaugeHeight);
+        mOilCanAndLevelLayerRenderer.setSize(gaugeWidth, gaugeHeight);
+        mArrowAndSectorsLayerRenderer.setSize(gaugeWidth, gaugeHeight);
+
+        int oilCanWidth = mOilCanAndLevelLayerRenderer.getOilCanWidth();
+        int oilCanHeight = mOilCanAndLevelLayerRenderer.getOilCanHeight();
+        if (oilCanWidth > 0 && oilCanHeight > 0) {
+            mOilCanBitmap = GaugeResourceCache.decodeOilCanBitmap(resources, oilCanWidth, oilCanHeight, null);
+            mOilCanAndLevelLayerRenderer.setOilCanBitmap(mOilCanBitmap);
+        }
+
+        mDialBitmap = Bitmap.createBitmap(gaugeWidth, gaugeHeight, Bitmap.Config.ARGB_8888);
+        mCanvas.setBitmap(mDialBitmap);
+        mDialLayerRenderer.draw(mCanvas, mStyle, 0, 0);
+        mCanvas.setBitmap(null);
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * Draws frame into bitmap, it must be mutable and at least of renderer size.
+     * Speed and energy level are clamped like in {@link #draw(Canvas, float, float)}.
+     */
+    public void draw(Bitmap bitmap, float speed, float energyLevel){
+        if (!bitmap.isMutable() || bitmap.getWidth() < mWidth || bitmap.getHeight() < mHeight) {
+            throw new IllegalArgumentException("Bitmap must be mutable and at least "
+                    + mWidth + "x" + mHeight + ", found " + bitmap.getWidth() + "x" + bitmap.getHeight());
+        }
+        mCanvas.setBitmap(bitmap);
+        draw(mCanvas, speed, energyLevel);
+        mCanvas.setBitmap(null);
+    }
+
+    /**
+     * Draws frame at (0, 0) of canvas, e.g. of video encoder surface.
+     *
+     * @param speed       clamped to [0, maximum speedometer speed] of style
+     * @param energyLevel clamped to [0, 100]
+     */
+    public void draw(Canvas canvas, float speed, float energyLevel){
+        if (mDialBitmap == null) {
+            throw new IllegalStateException("Renderer is released");
+        }
+        // out of range values would give negative sector sweep, arrow past the dial and broken level bars
+        speed = Math.max(0, Math.min(speed, mStyle.getMaximumSpeedometerSpeed()));
+        energyLevel = Math.max(0, Math.min(energyLevel, 100));
+        int saveCount = canvas.save();
+        canvas.clipRect(0, 0, mWidth, mHeight);
+        canvas.drawColor(mStyle.getBackgroundColor());
+        canvas.translate(mGaugeLeft, mGaugeTop);
+
+        canvas.drawBitmap(mDialBitmap, 0, 0, null);
+
+        mOilCanAndLevelLayerRenderer.setColorFilterStep(energyLevel <= OilCanAndLevelLayerRenderer.ENERGY_LEVEL_CAN_EMPTY
+                ? OilCanAndLevelLayerRenderer.OIL_CAN_COLOR_FILTER_STEPS : 0);
+        mOilCanAndLevelLayerRenderer.draw(canvas, mStyle, speed, energyLevel);
+
+        mArrowAndSectorsLayerRenderer.draw(canvas, mStyle, speed, energyLevel);
+        canvas.restoreToCount(saveCount);
+    }
+
+    /**
+     * Recycles bitmaps of renderer, it can't draw after that.
+     */
+    public void release(){
+        if (mDialBitmap != null) {
+            mDialBitmap.recycle();
+            mDialBitmap = null;
+        }
+        if (mOilCanBitmap != null) {
+            mOilCanAndLevelLayerRenderer.setOilCanBitmap(null);
+            mOilCanBitmap.recycle();
+            mOilCanBitmap = null;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.vitaliyhtc.speedometerview;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+/**
+ * Single frame clock for many {@link SpeedometerView}s on one screen. Instead of posting its own
+ * frame callback every gauge requests a frame from the host, and all gauges that requested it
+ * are stepped in one pass of one Choreographer callback.
+ * <p>
+ * Use {@link SpeedometerView#setGaugeHost(GaugeHost)}. Must be used on UI thread only.
+ */
+public class GaugeHost {
+
+    // same as SpeedometerView uses without Choreographer
+    private static final long FALLBACK_FRAME_DELAY_MS = 16;
+
+    private final GaugeFrameQueue mFrameQueue = new GaugeFrameQueue();
+    private boolean isFramePosted;
+    // frame is posted with delay, only gauges at half tick rate requested it
+    private boolean isFramePostedDelayed;
+
+    private Choreographer.FrameCallback mFrameCallback;
+    private Handler mHandler;
+
+    public GaugeHost() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mFrameCallback = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    onFrame(frameTimeNanos);
+                }
+            };
+        } else {
+            mHandler = new Handler(Looper.getMainLooper());
+        }
+    }
+
+    private Runnable mFallbackFrameRunnable = new Runnable() {
+        @Override
+        public void run() {
+            onFrame(System.nanoTime());
+        }
+    };
+
+    /**
+     * @param delayMillis 0 to step gauge on the next frame, or delay of its half tick rate. Host
+     *                    callback is posted with delay only if no gauge needs the next frame.
+     */
+    void requestFrame(SpeedometerView gauge, long delayMillis){
+        mFrameQueue.request(gauge.mHostFrameEntry);
+        if (isFramePosted) {
+            if (!isFramePostedDelayed || delayMillis > 0) {
+                return;
+            }
+            // delayed frame is too late for this gauge
+            if (mFrameCallback != null) {
+                Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+            } else {
+                mHandler.removeCallbacks(mFallbackFrameRunnable);
+            }
+        }
+        isFramePosted = true;
+        isFramePostedDelayed = delayMillis > 0;
+        if (mFrameCallback != null) {
+            Choreographer.getInstance().postFrameCallbackDelayed(mFrameCallback, delayMillis);
+        } else {
+            mHandler.postDelayed(mFallbackFrameRunnable, FALLBACK_FRAME_DELAY_MS + delayMillis);
+        }
+    }
+
+    void cancelFrame(SpeedometerView gauge){
+        mFrameQueue.cancel(gauge.mHostFrameEntry);
+    }
+
+    private void onFrame(long frameTimeNanos){
+        isFramePosted = false;
+        isFramePostedDelayed = false;
+        mFrameQueue.dispatchFrame(frameTimeNanos);
+    }
+}
@@ -0,0 +1,16 @@
+package com.vitaliyhtc.speedometerview;
+
+import android.graphics.Canvas;
+
+/**
+ * Draws one layer of a gauge: dial, oil can and level, or arrow and sectors. Layers are drawn
+ * in this order, all of them at the same size, with (0, 0) at top left corner of the gauge.
+ * <p>
+ * Renderer keeps its own paints and paths, so one instance must be used from one thread.
+ */
+interface GaugeLayerRenderer {
+
+    void setSize(int width, int height);
+
+    void draw(Canvas canvas, GaugeStyle style, float speed, float energyLevel);
+}
@@ -0,0 +1,123 @@
+package com.vitaliyhtc.speedometerview;
+
+/**
+ * Frame time metrics of one {@link SpeedometerView}, enabled with
+ * {@link SpeedometerView#setMetricsEnabled(boolean)}. Durations are collected into
+ * {@link DurationHistogram}s, so recording and reading don't allocate.
+ * <p>
+ * Metrics are written on UI thread and must be read there too.
+ */
+public class GaugeMetrics {
+
+    private static final long DEFAULT_FRAME_INTERVAL_NANOS = 16666667L;
+
+    private final DurationHistogram mDialDrawHistogram = new DurationHistogram();
+    private final DurationHistogram mArrowAndSectorsDrawHistogram = new DurationHistogram();
+    private final DurationHistogram mOilCanAndLevelDrawHistogram = new DurationHistogram();
+    private final DurationHistogram mTickHistogram = new DurationHistogram();
+    private final DurationHistogram mTickLatenessHistogram = new DurationHistogram();
+    private final DurationHistogram mListenerDispatchHistogram = new DurationHistogram();
+
+    private long mFrameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
+    private long mFrameCount;
+    private long mDroppedFrameCount;
+
+    /**
+     * Time of drawing dial layer. Dial is cached, so usually it is only a bitmap copy.
+     */
+    public DurationHistogram getDialDrawHistogram() {
+        return mDialDrawHistogram;
+    }
+
+    public DurationHistogram getArrowAndSectorsDrawHistogram() {
+        return mArrowAndSectorsDrawHistogram;
+    }
+
+    public DurationHistogram getOilCanAndLevelDrawHistogram() {
+        return mOilCanAndLevelDrawHistogram;
+    }
+
+    /**
+     * Time of animation loop tick, it includes listeners dispatch.
+     */
+    public DurationHistogram getTickHistogram() {
+        return mTickHistogram;
+    }
+
+    /**
+     * How much later than intended since previous tick a tick came. Intended time is
+     * {@link #getFrameIntervalNanos()}, or two of them when adaptive quality halved tick rate.
+     * Ticks on time are recorded as 0.
+     */
+    public DurationHistogram getTickLatenessHistogram() {
+        return mTickLatenessHistogram;
+    }
+
+    /**
+     * Time of notifying speed change listeners on UI thread, dispatch through executor
+     * isn't measured.
+     */
+    public DurationHistogram getListenerDispatchHistogram() {
+        return mListenerDispatchHistogram;
+    }
+
+    /**
+     * @return intended time between animation ticks, display refresh interval
+     */
+    public long getFrameIntervalNanos() {
+        return mFrameIntervalNanos;
+    }
+
+    void setFrameIntervalNanos(long frameIntervalNanos) {
+        if (frameIntervalNanos <= 0) {
+            throw new IllegalArgumentException("Frame interval must be positive, found " + frameIntervalNanos);
+        }
+        mFrameIntervalNanos = frameIntervalNanos;
+    }
+
+    /**
+     * @return number of animation ticks
+     */
+    public long getFrameCount() {
+        return mFrameCount;
+    }
+
+    /**
+     * @return number of frame intervals animation loop missed while running, loop parked on
+     *         converged speed doesn't count as dropped frames
+     */
+    public long getDroppedFrameCount() {
+        return mDroppedFrameCount;
+    }
+
+    public void reset(){
+        mDialDrawHistogram.reset();
+        mArrowAndSectorsDrawHistogram.reset();
+        mOilCanAndLevelDrawHistogram.reset();
+        mTickHistogram.reset();
+        mTickLatenessHistogram.reset();
+        mListenerDispatchHistogram.reset();
+        mFrameCount = 0;
+        mDroppedFrameCount = 0;
+    }
+
+    /**
+     * @param previousFrameTimeNanos  frame time of previous tick of running loop, 0 for the first
+     *                                tick after loop was started or resumed
+     * @param expectedFrameDeltaNanos intended time since previous tick
+     */
+    void recordTick(long frameTimeNanos, long previousFrameTimeNanos, long expectedFrameDeltaNanos, long durationNanos){
+        mFrameCount++;
+        mTickHistogram.record(durationNanos);
+        if (previousFrameTimeNanos == 0) {
+            return;
+        }
+        long frameDeltaNanos = frameTimeNanos - previousFrameTimeNanos;
+        mTickLatenessHistogram.record(frameDeltaNanos - expectedFrameDeltaNanos);
+        // half of interval is tolerated as vsync jitter
+        long missedFrames = (frameDeltaNanos - expectedFrameDeltaNanos + mFrameIntervalNanos / 2) / mFrameIntervalNanos;
+        if (missedFrames > 0) {
+            mDroppedFrameCount += missedFrames;
+        }
+    }
+}
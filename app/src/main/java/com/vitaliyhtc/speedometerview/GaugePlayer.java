@@ -0,0 +1,143 @@
+package com.vitaliyhtc.speedometerview;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Plays trace written by {@link GaugeRecorder}. File is memory-mapped and records are read
+ * in place, so hours long traces don't take heap.
+ * <p>
+ * Must be used from one thread, {@link SpeedometerView} advances it on every animation frame.
+ */
+public class GaugePlayer implements Closeable {
+
+    private final RandomAccessFile mFile;
+    private final MappedByteBuffer mBuffer;
+    private final int mRecordCount;
+
+    private float mSpeedFactor = 1;
+    private double mPositionMs;
+    private int mRecordIndex;
+
+    public GaugePlayer(File file) throws IOException {
+        mFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = mFile.getChannel();
+            long size = channel.size();
+            if (size < GaugeRecorder.HEADER_SIZE) {
+                throw new IOException("Not a gauge trace, file is too short: " + file);
+            }
+            mBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mBuffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (mBuffer.getInt(0) != GaugeRecorder.MAGIC) {
+                throw new IOException("Not a gauge trace: " + file);
+            }
+            if (mBuffer.getShort(4) != GaugeRecorder.VERSION || mBuffer.getShort(6) != GaugeRecorder.RECORD_SIZE) {
+                throw new IOException("Unsupported gauge trace version: " + mBuffer.getShort(4));
+            }
+            mRecordCount = (int) ((size - GaugeRecorder.HEADER_SIZE) / GaugeRecorder.RECORD_SIZE);
+        } catch (IOException e) {
+            mFile.close();
+            throw e;
+        }
+    }
+
+    public int getRecordCount() {
+        return mRecordCount;
+    }
+
+    public long getDurationMs() {
+        return mRecordCount > 0 ? getTimeMs(mRecordCount - 1) : 0;
+    }
+
+    public long getPositionMs() {
+        return (long) mPositionMs;
+    }
+
+    public float getSpeedFactor() {
+        return mSpeedFactor;
+    }
+
+    /**
+     * @param speedFactor 1 for real time playback, bigger values for accelerated playback
+     */
+    public void setSpeedFactor(float speedFactor) {
+        if (speedFactor > 0) {
+            mSpeedFactor = speedFactor;
+        } else {
+            throw new IllegalArgumentException("Speed factor must be positive, found " + speedFactor);
+        }
+    }
+
+    public void seekTo(long positionMs) {
+        mPositionMs = Math.max(0, positionMs);
+        // records are sorted by time
+        int low = 0;
+        int high = mRecordCount - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (getTimeMs(middle) <= mPositionMs) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        mRecordIndex = low;
+    }
+
+    /**
+     * Moves playback position forward.
+     *
+     * @param deltaSeconds real time passed since previous call
+     */
+    public void advance(float deltaSeconds) {
+        mPositionMs += deltaSeconds * 1000 * mSpeedFactor;
+        while (mRecordIndex < mRecordCount - 1 && getTimeMs(mRecordIndex + 1) <= mPositionMs) {
+            mRecordIndex++;
+        }
+    }
+
+    public boolean isFinished() {
+        return mPositionMs >= getDurationMs();
+    }
+
+    public boolean isEmpty() {
+        return mRecordCount == 0;
+    }
+
+    // Values of current record, must not be called for empty trace.
+
+    public float getSpeed() {
+        return mBuffer.getFloat(getRecordOffset(mRecordIndex) + 4);
+    }
+
+    public float getEnergyLevel() {
+        return mBuffer.getFloat(getRecordOffset(mRecordIndex) + 8);
+    }
+
+    public boolean isTrottlePedalPressed() {
+        return (mBuffer.get(getRecordOffset(mRecordIndex) + 12) & GaugeRecorder.FLAG_TROTTLE_PEDAL_PRESSED) != 0;
+    }
+
+    public boolean isBrakePedalPressed() {
+        return (mBuffer.get(getRecordOffset(mRecordIndex) + 12) & GaugeRecorder.FLAG_BRAKE_PEDAL_PRESSED) != 0;
+    }
+
+    private long getTimeMs(int recordIndex) {
+        return mBuffer.getInt(getRecordOffset(recordIndex));
+    }
+
+    private int getRecordOffset(int recordIndex) {
+        return GaugeRecorder.HEADER_SIZE + recordIndex * GaugeRecorder.RECORD_SIZE;
+    }
+
+    @Override
+    public void close() throws IOException {
+        mFile.close();
+    }
+}
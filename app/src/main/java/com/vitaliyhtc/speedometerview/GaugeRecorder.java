@@ -0,0 +1,224 @@
+package com.vitaliyhtc.speedometerview;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes gauge state of every animation frame into compact binary trace, see {@link GaugePlayer}.
+ * <p>
+ * Trace is a header followed by fixed-width records:
+ * <pre>
+ * header: int magic, short version, short record size
+ * record: int time in ms since first record, float speed, float energy level, byte pedals flags
+ * </pre>
+ * Records are collected in one of two direct buffers. Full buffer is written with
+ * {@link FileChannel} on recorder's own background thread while records go into the other one,
+ * so disk stalls don't block the thread frames are recorded on (UI thread). If disk is so slow
+ * that both buffers are full, new records are dropped and counted.
+ * <p>
+ * {@link #record(long, float, float, boolean, boolean)} must be called from one thread, it doesn't
+ * throw or allocate. First I/O error stops recording and is thrown from {@link #close()}.
+ */
+public class GaugeRecorder implements Closeable {
+
+    static final int MAGIC = 0x53565452; // "SVTR"
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final short RECORD_SIZE = 13;
+
+    static final int FLAG_TROTTLE_PEDAL_PRESSED = 1;
+    static final int FLAG_BRAKE_PEDAL_PRESSED = 1 << 1;
+
+    private static final int BUFFER_SIZE = RECORD_SIZE * 4096;
+
+    private final FileChannel mChannel;
+    // buffer records are put into, owned by recording thread
+    private ByteBuffer mBuffer;
+    private long mStartTimeNanos = -1;
+    private long mDroppedRecordCount;
+    private boolean isClosed;
+
+    // Handoff between recording and writer threads, guarded by mLock.
+    private final Object mLock = new Object();
+    // full buffer waiting for writer, or null
+    private ByteBuffer mPendingBuffer;
+    // written and cleared buffer, or null while writer still has it
+    private ByteBuffer mFreeBuffer;
+    private boolean isClosing;
+
+    private final Thread mWriterThread;
+    private volatile IOException mError;
+
+    public GaugeRecorder(File file) throws IOException {
+        mChannel = new FileOutputStream(file).getChannel();
+        mBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        mFreeBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        mBuffer.putInt(MAGIC);
+        mBuffer.putShort(VERSION);
+        mBuffer.putShort(RECORD_SIZE);
+
+        mWriterThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeBuffers();
+            }
+        }, "GaugeRecorder");
+        mWriterThread.setDaemon(true);
+        mWriterThread.start();
+    }
+
+    /**
+     * Appends one record. Does nothing after close or I/O error.
+     *
+     * @param timeNanos frame time in {@link System#nanoTime()} time base
+     */
+    public void record(long timeNanos, float speed, float energyLevel,
+                       boolean isTrottlePedalPressed, boolean isBrakePedalPressed){
+        if (isClosed || mError != null) {
+            return;
+        }
+        if (mStartTimeNanos < 0) {
+            mStartTimeNanos = timeNanos;
+        }
+        if (mBuffer.remaining() < RECORD_SIZE && !swapBuffers()) {
+            mDroppedRecordCount++;
+            return;
+        }
+        int flags = 0;
+        if (isTrottlePedalPressed) {
+            flags |= FLAG_TROTTLE_PEDAL_PRESSED;
+        }
+        if (isBrakePedalPressed) {
+            flags |= FLAG_BRAKE_PEDAL_PRESSED;
+        }
+        mBuffer.putInt((int) ((timeNanos - mStartTimeNanos) / 1000000));
+        mBuffer.putFloat(speed);
+        mBuffer.putFloat(energyLevel);
+        mBuffer.put((byte) flags);
+    }
+
+    /**
+     * Number of records dropped because writer didn't keep up with recording.
+     * Must be called from recording thread.
+     */
+    public long getDroppedRecordCount() {
+        return mDroppedRecordCount;
+    }
+
+    // Hands full buffer to writer, returns false if writer still has the other one.
+    private boolean swapBuffers(){
+        synchronized (mLock) {
+            if (mFreeBuffer == null) {
+                return false;
+            }
+            mPendingBuffer = mBuffer;
+            mBuffer = mFreeBuffer;
+            mFreeBuffer = null;
+            mLock.notifyAll();
+        }
+        return true;
+    }
+
+    // Writer thread loop, runs until close() hands the last buffer.
+    private void writeBuffers(){
+        while (true) {
+            ByteBuffer buffer;
+            synchronized (mLock) {
+                while (mPendingBuffer == null && !isClosing) {
+                    try {
+                        mLock.wait();
+                    } catch (InterruptedException e) {
+                        // only close() stops writer
+                    }
+                }
+                if (mPendingBuffer == null) {
+                    return;
+                }
+                buffer = mPendingBuffer;
+            }
+
+            if (mError == null) {
+                buffer.flip();
+                try {
+                    while (buffer.hasRemaining()) {
+                        mChannel.write(buffer);
+                    }
+                } catch (IOException e) {
+                    mError = e;
+                }
+            }
+            buffer.clear();
+
+            synchronized (mLock) {
+                mPendingBuffer = null;
+                mFreeBuffer = buffer;
+                mLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits until writer has written buffer handed to it, so the next full buffer isn't dropped.
+     * Must be called from recording thread.
+     *
+     * @return true if waiting was interrupted
+     */
+    boolean awaitPendingBuffer(){
+        boolean isInterrupted = false;
+        synchronized (mLock) {
+            while (mPendingBuffer != null) {
+                try {
+                    mLock.wait();
+                } catch (InterruptedException e) {
+                    isInterrupted = true;
+                }
+            }
+        }
+        return isInterrupted;
+    }
+
+    /**
+     * Writes remaining records and closes file.
+     *
+     * @throws IOException first error happened while recording or closing
+     */
+    @Override
+    public void close() throws IOException {
+        if (isClosed) {
+            return;
+        }
+        isClosed = true;
+        boolean isInterrupted = awaitPendingBuffer();
+        synchronized (mLock) {
+            mPendingBuffer = mBuffer;
+            isClosing = true;
+            mLock.notifyAll();
+        }
+        while (true) {
+            try {
+                mWriterThread.join();
+                break;
+            } catch (InterruptedException e) {
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            mChannel.close();
+        } catch (IOException e) {
+            if (mError == null) {
+                mError = e;
+            }
+        }
+        if (mError != null) {
+            throw mError;
+        }
+    }
+}
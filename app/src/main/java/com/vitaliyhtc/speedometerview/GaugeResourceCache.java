@@ -0,0 +1,182 @@
+package com.vitaliyhtc.speedometerview;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+
+import java.util.ArrayList;
+
+/**
+ * Reference-counted bitmaps shared by all {@link SpeedometerView} instances.
+ * Gauges with the same size, maximum speed and dial colors use one dial layer bitmap,
+ * gauges of the same size use one oil can icon decoded at the size it is drawn at.
+ * Bitmap is recycled when the last user releases it.
+ * <p>
+ * Must be used on UI thread only, except {@link #decodeOilCanBitmap(Resources, int, int, Bitmap)}.
+ */
+final class GaugeResourceCache {
+
+    static final class DialLayer {
+        final int width;
+        final int height;
+        final int maximumSpeed;
+        final int outerCircleColor;
+        final int digitsColor;
+        final Bitmap bitmap;
+        // set by the first user which draws dial into bitmap, others only copy it
+        boolean isDrawn;
+        private int mReferenceCount;
+
+        private DialLayer(int width, int height, int maximumSpeed, int outerCircleColor, int digitsColor) {
+            this.width = width;
+            this.height = height;
+            this.maximumSpeed = maximumSpeed;
+            this.outerCircleColor = outerCircleColor;
+            this.digitsColor = digitsColor;
+            this.bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        }
+
+        boolean matches(int width, int height, int maximumSpeed, int outerCircleColor, int digitsColor) {
+            return this.width == width && this.height == height && this.maximumSpeed == maximumSpeed
+                    && this.outerCircleColor == outerCircleColor && this.digitsColor == digitsColor;
+        }
+    }
+
+    static final class OilCanBitmap {
+        // requested size, decoded bitmap can differ by a pixel because of rounding
+        final int width;
+        final int height;
+        final Bitmap bitmap;
+        private int mReferenceCount;
+
+        private OilCanBitmap(int width, int height, Bitmap bitmap) {
+            this.width = width;
+            this.height = height;
+            this.bitmap = bitmap;
+        }
+    }
+
+    // Usually there are only few different gauge styles on screen, so list is faster than map
+    // and lookup doesn't allocate key.
+    private static final ArrayList<DialLayer> sDialLayers = new ArrayList<>();
+
+    private static final ArrayList<OilCanBitmap> sOilCanBitmaps = new ArrayList<>();
+    // Oil can bitmap released on resize, its memory is reused by the next decoded one.
+    private static Bitmap sReusableOilCanBitmap;
+
+    private GaugeResourceCache() {
+    }
+
+    static DialLayer acquireDialLayer(int width, int height, int maximumSpeed, int outerCircleColor, int digitsColor) {
+        for (int i = 0; i < sDialLayers.size(); i++) {
+            DialLayer dialLayer = sDialLayers.get(i);
+            if (dialLayer.matches(width, height, maximumSpeed, outerCircleColor, digitsColor)) {
+                dialLayer.mReferenceCount++;
+                return dialLayer;
+            }
+        }
+        DialLayer dialLayer = new DialLayer(width, height, maximumSpeed, outerCircleColor, digitsColor);
+        dialLayer.mReferenceCount = 1;
+        sDialLayers.add(dialLayer);
+        return dialLayer;
+    }
+
+    static void releaseDialLayer(DialLayer dialLayer) {
+        dialLayer.mReferenceCount--;
+        if (dialLayer.mReferenceCount == 0) {
+            sDialLayers.remove(dialLayer);
+            dialLayer.bitmap.recycle();
+        }
+    }
+
+    static OilCanBitmap acquireOilCanBitmap(Resources resources, int width, int height) {
+        Bitmap reusableBitmap = sReusableOilCanBitmap;
+        sReusableOilCanBitmap = null;
+        for (int i = 0; i < sOilCanBitmaps.size(); i++) {
+            OilCanBitmap oilCanBitmap = sOilCanBitmaps.get(i);
+            if (oilCanBitmap.width == width && oilCanBitmap.height == height) {
+                if (reusableBitmap != null) {
+                    reusableBitmap.recycle();
+                }
+                oilCanBitmap.mReferenceCount++;
+                return oilCanBitmap;
+            }
+        }
+        OilCanBitmap oilCanBitmap = new OilCanBitmap(width, height,
+                decodeOilCanBitmap(resources, width, height, reusableBitmap));
+        oilCanBitmap.mReferenceCount = 1;
+        sOilCanBitmaps.add(oilCanBitmap);
+        return oilCanBitmap;
+    }
+
+    /**
+     * @param isMemoryReused true if caller acquires bitmap of other size right after, e.g. when
+     *                       gauge is resized. If released bitmap isn't used anymore, its memory
+     *                       is reused then instead of recycling.
+     */
+    static void releaseOilCanBitmap(OilCanBitmap oilCanBitmap, boolean isMemoryReused) {
+        oilCanBitmap.mReferenceCount--;
+        if (oilCanBitmap.mReferenceCount == 0) {
+            sOilCanBitmaps.remove(oilCanBitmap);
+            if (isMemoryReused && sReusableOilCanBitmap == null) {
+                sReusableOilCanBitmap = oilCanBitmap.bitmap;
+            } else {
+                oilCanBitmap.bitmap.recycle();
+            }
+        }
+    }
+
+    /**
+     * Decodes oil can icon scaled to given size: subsampled with inSampleSize while decoding,
+     * then prescaled to exact width, so it is drawn without scaling. Safe to call from any thread.
+     * On API 19+ bitmaps are always decoded mutable, decoder accepts only mutable bitmaps as
+     * inBitmap, so every decoded icon can lend its memory to the next one.
+     *
+     * @param reusableBitmap bitmap which memory is reused if it is big enough (API 19+),
+     *                       or null. It must not be used by caller after this call.
+     */
+    static Bitmap decodeOilCanBitmap(Resources resources, int width, int height, Bitmap reusableBitmap) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Oil can size must be positive, found " + width + "x" + height);
+        }
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeResource(resources, R.drawable.ic_oil, options);
+
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= width && options.outHeight / (sampleSize * 2) >= height) {
+            sampleSize *= 2;
+        }
+        int sampledWidth = options.outWidth / sampleSize;
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        if (sampledWidth != width) {
+            // decoder scales by inTargetDensity / inDensity after subsampling
+            options.inScaled = true;
+            options.inDensity = sampledWidth;
+            options.inTargetDensity = width;
+        } else {
+            options.inScaled = false;
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            options.inMutable = true;
+        }
+        if (reusableBitmap != null && reusableBitmap.isMutable()
+                && Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            options.inBitmap = reusableBitmap;
+            try {
+                return BitmapFactory.decodeResource(resources, R.drawable.ic_oil, options);
+            } catch (IllegalArgumentException e) {
+                // reusable bitmap is too small
+                options.inBitmap = null;
+            }
+        }
+        if (reusableBitmap != null) {
+            reusableBitmap.recycle();
+        }
+        return BitmapFactory.decodeResource(resources, R.drawable.ic_oil, options);
+    }
+}
@@ -0,0 +1,161 @@
+package com.vitaliyhtc.speedometerview;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+/**
+ * Snapshot of {@link SpeedometerView} state: speed, energy level, maximum speed and colors.
+ * Used to rebind recycled gauges with {@link SpeedometerView#bind(GaugeState)} and to save
+ * instance state.
+ */
+public class GaugeState implements Parcelable {
+
+    private float mSpeed;
+    private float mEnergyLevel;
+    private int mMaximumSpeedometerSpeed;
+    private int mBackgroundColor;
+    private int mDigitsColor;
+    private int mSectorBeforeArrowColor;
+    private int mSectorAfterArrowColor;
+    private int mOuterCircleColor;
+    private int mArrowColor;
+
+    /**
+     * Creates state of a new gauge: zero speed and energy level, default maximum speed and colors.
+     */
+    public GaugeState() {
+        mMaximumSpeedometerSpeed = GaugeStyle.DEFAULT_MAXIMUM_SPEEDOMETER_SPEED;
+        mBackgroundColor = GaugeStyle.DEFAULT_BACKGROUND_COLOR;
+        mDigitsColor = GaugeStyle.DEFAULT_DIGITS_COLOR;
+        mSectorBeforeArrowColor = GaugeStyle.DEFAULT_SECTOR_BEFORE_ARROW_COLOR;
+        mSectorAfterArrowColor = GaugeStyle.DEFAULT_SECTOR_AFTER_ARROW_COLOR;
+        mOuterCircleColor = GaugeStyle.DEFAULT_OUTER_CIRCLE_COLOR;
+        mArrowColor = GaugeStyle.DEFAULT_ARROW_COLOR;
+    }
+
+    public GaugeState(GaugeState other) {
+        mSpeed = other.mSpeed;
+        mEnergyLevel = other.mEnergyLevel;
+        mMaximumSpeedometerSpeed = other.mMaximumSpeedometerSpeed;
+        mBackgroundColor = other.mBackgroundColor;
+        mDigitsColor = other.mDigitsColor;
+        mSectorBeforeArrowColor = other.mSectorBeforeArrowColor;
+        mSectorAfterArrowColor = other.mSectorAfterArrowColor;
+        mOuterCircleColor = other.mOuterCircleColor;
+        mArrowColor = other.mArrowColor;
+    }
+
+    protected GaugeState(Parcel in) {
+        mSpeed = in.readFloat();
+        mEnergyLevel = in.readFloat();
+        mMaximumSpeedometerSpeed = in.readInt();
+        mBackgroundColor = in.readInt();
+        mDigitsColor = in.readInt();
+        mSectorBeforeArrowColor = in.readInt();
+        mSectorAfterArrowColor = in.readInt();
+        mOuterCircleColor = in.readInt();
+        mArrowColor = in.readInt();
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeFloat(mSpeed);
+        dest.writeFloat(mEnergyLevel);
+        dest.writeInt(mMaximumSpeedometerSpeed);
+        dest.writeInt(mBackgroundColor);
+        dest.writeInt(mDigitsColor);
+        dest.writeInt(mSectorBeforeArrowColor);
+        dest.writeInt(mSectorAfterArrowColor);
+        dest.writeInt(mOuterCircleColor);
+        dest.writeInt(mArrowColor);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<GaugeState> CREATOR = new Creator<GaugeState>() {
+        @Override
+        public GaugeState createFromParcel(Parcel in) {
+            return new GaugeState(in);
+        }
+
+        @Override
+        public GaugeState[] newArray(int size) {
+            return new GaugeState[size];
+        }
+    };
+
+    public float getSpeed() {
+        return mSpeed;
+    }
+
+    public void setSpeed(float speed) {
+        mSpeed = speed;
+    }
+
+    public float getEnergyLevel() {
+        return mEnergyLevel;
+    }
+
+    public void setEnergyLevel(float energyLevel) {
+        mEnergyLevel = energyLevel;
+    }
+
+    public int getMaximumSpeedometerSpeed() {
+        return mMaximumSpeedometerSpeed;
+    }
+
+    public void setMaximumSpeedometerSpeed(int maximumSpeedometerSpeed) {
+        mMaximumSpeedometerSpeed = maximumSpeedometerSpeed;
+    }
+
+    public int getBackgroundColor() {
+        return mBackgroundColor;
+    }
+
+    public void setBackgroundColor(int backgroundColor) {
+        mBackgroundColor = backgroundColor;
+    }
+
+    public int getDigitsColor() {
+        return mDigitsColor;
+    }
+
+    public void setDigitsColor(int digitsColor) {
+        mDigitsColor = digitsColor;
+    }
+
+    public int getSectorBeforeArrowColor() {
+        return mSectorBeforeArrowColor;
+    }
+
+    public void setSectorBeforeArrowColor(int sectorBeforeArrowColor) {
+        mSectorBeforeArrowColor = sectorBeforeArrowColor;
+    }
+
+    public int getSectorAfterArrowColor() {
+        return mSectorAfterArrowColor;
+    }
+
+    public void setSectorAfterArrowColor(int sectorAfterArrowColor) {
+        mSectorAfterArrowColor = sectorAfterArrowColor;
+    }
+
+    public int getOuterCircleColor() {
+        return mOuterCircleColor;
+    }
+
+    public void setOuterCircleColor(int outerCircleColor) {
+        mOuterCircleColor = outerCircleColor;
+    }
+
+    public int getArrowColor() {
+        return mArrowColor;
+    }
+
+    public void setArrowColor(int arrowColor) {
+        mArrowColor = arrowColor;
+    }
+}
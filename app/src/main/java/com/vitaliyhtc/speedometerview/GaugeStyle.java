@@ -0,0 +1,180 @@
+package com.vitaliyhtc.speedometerview;
+
+import android.content.Context;
+import android.util.TypedValue;
+
+/**
+ * Colors, radiuses and maximum speed of a gauge, everything layer renderers need
+ * except current speed and energy level. Radiuses are in pixels.
+ */
+public class GaugeStyle {
+
+    static final int DEFAULT_BACKGROUND_COLOR = 0xffffffff;
+    static final int DEFAULT_DIGITS_COLOR = 0xff212121;
+    static final int DEFAULT_SECTOR_BEFORE_ARROW_COLOR = 0xff00897b;
+    static final int DEFAULT_SECTOR_AFTER_ARROW_COLOR = 0xff01479b;
+    static final int DEFAULT_OUTER_CIRCLE_COLOR = 0xff212121;
+    static final int DEFAULT_ARROW_COLOR = 0xff212121;
+
+    private static final float DEFAULT_ARROW_RADIUS = 96.0f;
+    private static final float DEFAULT_INTERNAL_SECTOR_RADIUS = 48.0f;
+    private static final float DEFAULT_EXTERNAL_SECTOR_RADIUS = 64.0f;
+
+    // next 2 values must be multiples of SpeedometerMath.DEFAULT_SPEED_NOTCHING_INTERVAL
+    private static final int DEFAULT_BOTTOM_SPEEDOMETER_SPEED = 60;
+    static final int DEFAULT_MAXIMUM_SPEEDOMETER_SPEED = 120;
+    private static final int DEFAULT_TOP_SPEEDOMETER_SPEED = 2000;
+
+    private int mBackgroundColor;
+    private int mDigitsColor;
+    private int mSectorBeforeArrowColor;
+    private int mSectorAfterArrowColor;
+    private float mArrowRadius;
+    private int mOuterCircleColor;
+    private int mArrowColor;
+    private float mInternalSectorRadius;
+    private float mExternalSectorRadius;
+    private int mMaximumSpeedometerSpeed;
+    private int mNotchesCount;
+
+    /**
+     * Creates default style, radiuses are converted from dp with display metrics of context.
+     */
+    public GaugeStyle(Context context) {
+        mBackgroundColor = DEFAULT_BACKGROUND_COLOR;
+        mDigitsColor = DEFAULT_DIGITS_COLOR;
+        mSectorBeforeArrowColor = DEFAULT_SECTOR_BEFORE_ARROW_COLOR;
+        mSectorAfterArrowColor = DEFAULT_SECTOR_AFTER_ARROW_COLOR;
+        mArrowRadius = convertDpToPixels(DEFAULT_ARROW_RADIUS, context);
+        mOuterCircleColor = DEFAULT_OUTER_CIRCLE_COLOR;
+        mArrowColor = DEFAULT_ARROW_COLOR;
+        mInternalSectorRadius = convertDpToPixels(DEFAULT_INTERNAL_SECTOR_RADIUS, context);
+        mExternalSectorRadius = convertDpToPixels(DEFAULT_EXTERNAL_SECTOR_RADIUS, context);
+        setMaximumSpeedometerSpeed(DEFAULT_MAXIMUM_SPEEDOMETER_SPEED);
+    }
+
+    public GaugeStyle(GaugeStyle other) {
+        mBackgroundColor = other.mBackgroundColor;
+        mDigitsColor = other.mDigitsColor;
+        mSectorBeforeArrowColor = other.mSectorBeforeArrowColor;
+        mSectorAfterArrowColor = other.mSectorAfterArrowColor;
+        mArrowRadius = other.mArrowRadius;
+        mOuterCircleColor = other.mOuterCircleColor;
+        mArrowColor = other.mArrowColor;
+        mInternalSectorRadius = other.mInternalSectorRadius;
+        mExternalSectorRadius = other.mExternalSectorRadius;
+        mMaximumSpeedometerSpeed = other.mMaximumSpeedometerSpeed;
+        mNotchesCount = other.mNotchesCount;
+    }
+
+    public int getBackgroundColor() {
+        return mBackgroundColor;
+    }
+
+    public void setBackgroundColor(int backgroundColor) {
+        mBackgroundColor = backgroundColor;
+    }
+
+    public int getDigitsColor() {
+        return mDigitsColor;
+    }
+
+    public void setDigitsColor(int digitsColor) {
+        mDigitsColor = digitsColor;
+    }
+
+    public int getSectorBeforeArrowColor() {
+        return mSectorBeforeArrowColor;
+    }
+
+    public void setSectorBeforeArrowColor(int sectorBeforeArrowColor) {
+        mSectorBeforeArrowColor = sectorBeforeArrowColor;
+    }
+
+    public int getSectorAfterArrowColor() {
+        return mSectorAfterArrowColor;
+    }
+
+    public void setSectorAfterArrowColor(int sectorAfterArrowColor) {
+        mSectorAfterArrowColor = sectorAfterArrowColor;
+    }
+
+    public float getArrowRadius() {
+        return mArrowRadius;
+    }
+
+    public void setArrowRadius(float arrowRadius) {
+        if (arrowRadius > 0) {
+            mArrowRadius = arrowRadius;
+        } else {
+            throw new IllegalArgumentException("Arrow radius must be positive, found " + arrowRadius);
+        }
+    }
+
+    public int getOuterCircleColor() {
+        return mOuterCircleColor;
+    }
+
+    public void setOuterCircleColor(int outerCircleColor) {
+        mOuterCircleColor = outerCircleColor;
+    }
+
+    public int getArrowColor() {
+        return mArrowColor;
+    }
+
+    public void setArrowColor(int arrowColor) {
+        mArrowColor = arrowColor;
+    }
+
+    public float getInternalSectorRadius() {
+        return mInternalSectorRadius;
+    }
+
+    public void setInternalSectorRadius(float internalSectorRadius) {
+        if(internalSectorRadius > 0){
+            mInternalSectorRadius = internalSectorRadius;
+        }else{
+            throw new IllegalArgumentException("Internal sector radius must be positive, found " + internalSectorRadius);
+        }
+    }
+
+    public float getExternalSectorRadius() {
+        return mExternalSectorRadius;
+    }
+
+    public void setExternalSectorRadius(float externalSectorRadius) {
+        if (externalSectorRadius > mInternalSectorRadius) {
+            mExternalSectorRadius = externalSectorRadius;
+        } else {
+            throw new IllegalArgumentException("External sector radius must be greater than internal sector radius, found " + externalSectorRadius);
+        }
+    }
+
+    public int getMaximumSpeedometerSpeed() {
+        return mMaximumSpeedometerSpeed;
+    }
+
+    /**
+     * @param maximumSpeedometerSpeed rounded up to multiple of notching interval
+     */
+    public void setMaximumSpeedometerSpeed(int maximumSpeedometerSpeed) {
+        int revalidatedInterval = SpeedometerMath.getRevalidatedSpeedNotchingInterval(maximumSpeedometerSpeed);
+        if(maximumSpeedometerSpeed > DEFAULT_BOTTOM_SPEEDOMETER_SPEED && maximumSpeedometerSpeed < DEFAULT_TOP_SPEEDOMETER_SPEED){
+            mMaximumSpeedometerSpeed = ((maximumSpeedometerSpeed+revalidatedInterval-1)/revalidatedInterval)*revalidatedInterval;
+        }else{
+            throw new IllegalArgumentException("Maximum speedometer speed must be greater than "
+                    +DEFAULT_BOTTOM_SPEEDOMETER_SPEED+", and less than "+DEFAULT_TOP_SPEEDOMETER_SPEED+
+                    ", found: "+maximumSpeedometerSpeed+";");
+        }
+        mNotchesCount = mMaximumSpeedometerSpeed/SpeedometerMath.getRevalidatedSpeedNotchingInterval(mMaximumSpeedometerSpeed);
+    }
+
+    int getNotchesCount() {
+        return mNotchesCount;
+    }
+
+    private static int convertDpToPixels(float dp, Context context) {
+        return (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, dp, context.getResources().getDisplayMetrics());
+    }
+}
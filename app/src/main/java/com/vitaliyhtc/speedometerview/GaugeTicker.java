@@ -0,0 +1,163 @@
+package com.vitaliyhtc.speedometerview;
+
+/**
+ * Simulation part of {@link SpeedometerView} animation tick: applies timestamped samples and
+ * played trace, steps engine, records it and notifies speed change listeners. Frame scheduling,
+ * invalidation, metrics and drawing stay in the view, so a tick runs on plain JVM too.
+ * <p>
+ * Must be used on UI thread, except {@link #onExternalInput()}.
+ */
+final class GaugeTicker {
+
+    // Long pauses (e.g. app in background) must not result in a huge jump of the arrow.
+    static final float MAXIMUM_FRAME_DELTA_SECONDS = 0.1f;
+    // Loop isn't parked until target speed or samples stop coming for this time, otherwise
+    // nearly every sample would park it on convergence and wake it again through UI thread.
+    static final long EXTERNAL_INPUT_KEEP_AWAKE_NANOS = 250000000L;
+    static final long DEFAULT_SAMPLE_LATENCY_WINDOW_NANOS = 250000000L;
+
+    private final SpeedometerEngine mEngine;
+    // Timestamped samples are rendered with latency window delay and interpolated between.
+    private final SpeedSampleBuffer mSampleBuffer;
+    private final SpeedChangeDispatcher mSpeedChangeDispatcher;
+    private final float[] mSampleValues = new float[2];
+    private long mSampleLatencyWindowNanos = DEFAULT_SAMPLE_LATENCY_WINDOW_NANOS;
+    private long mSampleRenderTimeNanos = Long.MIN_VALUE;
+
+    private GaugeRecorder mGaugeRecorder;
+    private GaugePlayer mGaugePlayer;
+    // release epoch of engine when player was set, release after that stops playback
+    private int mGaugePlayerReleaseEpoch;
+
+    private long mLastFrameTimeNanos;
+    // time of last setTargetSpeed() or submitted samples, in System.nanoTime() time base
+    private volatile long mLastExternalInputNanos;
+
+    GaugeTicker(SpeedometerEngine engine, SpeedSampleBuffer sampleBuffer, SpeedChangeDispatcher speedChangeDispatcher) {
+        mEngine = engine;
+        mSampleBuffer = sampleBuffer;
+        mSpeedChangeDispatcher = speedChangeDispatcher;
+    }
+
+    void setSampleLatencyWindowNanos(long sampleLatencyWindowNanos) {
+        mSampleLatencyWindowNanos = sampleLatencyWindowNanos;
+    }
+
+    void setGaugeRecorder(GaugeRecorder gaugeRecorder) {
+        mGaugeRecorder = gaugeRecorder;
+    }
+
+    void setGaugePlayer(GaugePlayer gaugePlayer) {
+        mGaugePlayer = gaugePlayer;
+        mGaugePlayerReleaseEpoch = mEngine.getReleaseEpoch();
+    }
+
+    /**
+     * Keeps loop awake for a while after target speed or samples came. Safe to call from any thread.
+     */
+    void onExternalInput() {
+        mLastExternalInputNanos = System.nanoTime();
+    }
+
+    /**
+     * @return frame time of previous tick of running loop, 0 if loop was just started or parked
+     */
+    long getLastFrameTimeNanos() {
+        return mLastFrameTimeNanos;
+    }
+
+    /**
+     * The next tick only remembers its frame time, e.g. when loop is woken up.
+     */
+    void resetFrameTime() {
+        mLastFrameTimeNanos = 0;
+    }
+
+    /**
+     * @return true if gauge has converged, listeners already got the final speed and loop can
+     *         be parked. Frame time is reset then, see {@link #resetFrameTime()}.
+     */
+    boolean tick(long frameTimeNanos) {
+        // first frame after start only remembers timestamp
+        float deltaSeconds = 0;
+        if (mLastFrameTimeNanos != 0) {
+            deltaSeconds = (frameTimeNanos - mLastFrameTimeNanos) / 1e9f;
+            if (deltaSeconds < 0) {
+                deltaSeconds = 0;
+            }
+            if (deltaSeconds > MAXIMUM_FRAME_DELTA_SECONDS) {
+                deltaSeconds = MAXIMUM_FRAME_DELTA_SECONDS;
+            }
+        }
+        mLastFrameTimeNanos = frameTimeNanos;
+
+        applySpeedSamples(frameTimeNanos);
+        applyGaugePlayer(deltaSeconds);
+        mEngine.step(deltaSeconds);
+
+        if (mGaugeRecorder != null) {
+            mGaugeRecorder.record(frameTimeNanos, mEngine.getSpeed(), mEngine.getEnergyLevel(),
+                    mEngine.isTrottlePedalPressed(), mEngine.isBrakePedalPressed());
+        }
+
+        boolean isConverged = mEngine.isConverged() && !hasPendingSpeedSamples()
+                && frameTimeNanos - mLastExternalInputNanos > EXTERNAL_INPUT_KEEP_AWAKE_NANOS
+                && (mGaugePlayer == null || mGaugePlayer.isFinished());
+        mSpeedChangeDispatcher.dispatch((int) mEngine.getSpeed(), frameTimeNanos, isConverged);
+        if (isConverged) {
+            mLastFrameTimeNanos = 0;
+        }
+        return isConverged;
+    }
+
+    /**
+     * @return true if target speed or samples were set from other thread after engine was
+     *         stepped, then loop must not stay parked
+     */
+    boolean hasPendingInput() {
+        return mEngine.hasPendingTargetSpeed() || hasPendingSpeedSamples();
+    }
+
+    private void applySpeedSamples(long frameTimeNanos) {
+        if (mSampleBuffer.isEmpty()) {
+            return;
+        }
+        mSampleRenderTimeNanos = frameTimeNanos - mSampleLatencyWindowNanos;
+        // releaseTargetSpeed() clears samples before it releases engine, so sample read before
+        // clear is dropped by epoch check instead of setting old target after release
+        int releaseEpoch = mEngine.getReleaseEpoch();
+        if (mSampleBuffer.sample(mSampleRenderTimeNanos, mSampleValues)
+                && mEngine.setTargetSpeed(mSampleValues[SpeedSampleBuffer.SPEED], releaseEpoch)) {
+            float energyLevel = mSampleValues[SpeedSampleBuffer.ENERGY_LEVEL];
+            if (!Float.isNaN(energyLevel)) {
+                mEngine.setEnergyLevel(energyLevel);
+            }
+        }
+    }
+
+    // Playback sets target speed and energy level, recorded pedals aren't replayed because
+    // engine ignores pedals in target speed mode anyway.
+    private void applyGaugePlayer(float deltaSeconds) {
+        if (mGaugePlayer == null) {
+            return;
+        }
+        if (mEngine.getReleaseEpoch() != mGaugePlayerReleaseEpoch) {
+            // releaseTargetSpeed() returned control to pedals
+            mGaugePlayer = null;
+            return;
+        }
+        if (mGaugePlayer.isEmpty()) {
+            return;
+        }
+        mGaugePlayer.advance(deltaSeconds);
+        // dropped while release set before player is pending, or if release comes meanwhile
+        if (mEngine.setTargetSpeed(mGaugePlayer.getSpeed(), mGaugePlayerReleaseEpoch)) {
+            mEngine.setEnergyLevel(mGaugePlayer.getEnergyLevel());
+        }
+    }
+
+    // there are samples which were not reached by render time yet
+    private boolean hasPendingSpeedSamples() {
+        return !mSampleBuffer.isEmpty() && mSampleBuffer.getNewestTimestamp() > mSampleRenderTimeNanos;
+    }
+}
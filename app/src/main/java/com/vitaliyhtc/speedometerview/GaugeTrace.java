@@ -0,0 +1,99 @@
+package com.vitaliyhtc.speedometerview;
+
+import android.os.Build;
+import android.os.Trace;
+
+import java.lang.reflect.Method;
+
+/**
+ * Systrace/Perfetto sections and counters of gauge phases, enabled with
+ * {@link SpeedometerView#setTraceEnabled(boolean)}. Callers check {@link #isEnabled} first,
+ * so disabled tracing costs one field read.
+ * <p>
+ * Sections need API 18. Counters use hidden Trace.traceCounter() found by reflection on API 18 -
+ * 27 and are a no-op on other versions: API 28 blocks hidden API, and public Trace.setCounter()
+ * of API 29 isn't available with compileSdkVersion of this library. If the method is missing
+ * counters are silently skipped too.
+ */
+final class GaugeTrace {
+
+    static final String SECTION_TICK = "SpeedometerView#tick";
+    static final String SECTION_DISPATCH = "SpeedometerView#dispatchSpeedChange";
+    static final String SECTION_DRAW_DIAL = "SpeedometerView#drawDial";
+    static final String SECTION_DRAW_OIL_CAN_AND_LEVEL = "SpeedometerView#drawOilCanAndLevel";
+    static final String SECTION_DRAW_ARROW_AND_SECTORS = "SpeedometerView#drawArrowAndSectors";
+    static final String SECTION_OIL_CAN_ANIMATION = "SpeedometerView#oilCanAnimation";
+
+    static volatile boolean isEnabled;
+
+    // Build.VERSION_CODES.P, hidden API is restricted since it
+    private static final int HIDDEN_API_RESTRICTED_SDK_INT = 28;
+    // boxed counter values are created once, speed and energy level fit into this range
+    private static final int BOXED_COUNTER_VALUES_COUNT = 2048;
+
+    private static boolean isCounterMethodLoaded;
+    private static Method sTraceCounterMethod;
+    // reused arguments of reflective call: tag, counter name, value
+    private static Object[] sTraceCounterArgs;
+    private static Integer[] sBoxedCounterValues;
+
+    private GaugeTrace() {
+    }
+
+    static void setEnabled(boolean enabled){
+        isEnabled = enabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+    }
+
+    static void beginSection(String sectionName){
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.beginSection(sectionName);
+        }
+    }
+
+    static void endSection(){
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.endSection();
+        }
+    }
+
+    /**
+     * Must be called on UI thread. Doesn't allocate after the first call for values in
+     * [0, {@link #BOXED_COUNTER_VALUES_COUNT}).
+     */
+    static void setCounter(String counterName, int value){
+        if (!isCounterMethodLoaded) {
+            isCounterMethodLoaded = true;
+            loadCounterMethod();
+        }
+        if (sTraceCounterMethod == null) {
+            return;
+        }
+        sTraceCounterArgs[1] = counterName;
+        sTraceCounterArgs[2] = value >= 0 && value < BOXED_COUNTER_VALUES_COUNT
+                ? sBoxedCounterValues[value] : Integer.valueOf(value);
+        try {
+            sTraceCounterMethod.invoke(null, sTraceCounterArgs);
+        } catch (Exception e) {
+            sTraceCounterMethod = null;
+        }
+        sTraceCounterArgs[1] = null;
+    }
+
+    private static void loadCounterMethod(){
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR2
+                || Build.VERSION.SDK_INT >= HIDDEN_API_RESTRICTED_SDK_INT) {
+            return;
+        }
+        try {
+            long traceTagApp = Trace.class.getField("TRACE_TAG_APP").getLong(null);
+            sTraceCounterMethod = Trace.class.getMethod("traceCounter", long.class, String.class, int.class);
+            sTraceCounterArgs = new Object[]{traceTagApp, null, null};
+            sBoxedCounterValues = new Integer[BOXED_COUNTER_VALUES_COUNT];
+            for (int i = 0; i < BOXED_COUNTER_VALUES_COUNT; i++) {
+                sBoxedCounterValues[i] = i;
+            }
+        } catch (Exception e) {
+            sTraceCounterMethod = null;
+        }
+    }
+}
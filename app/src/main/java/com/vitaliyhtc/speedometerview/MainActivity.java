@@ -21,10 +21,12 @@ public class MainActivity extends AppCompatActivity {
         mSpeedTextView = (TextView) findViewById(R.id.tv_speed);
 
         mSpeedometerView = (SpeedometerView) findViewById(R.id.SpeedometerView);
-        mSpeedometerView.setArrowAccelerationSpeed(1.0f);
-        mSpeedometerView.setArrowAttenuationSpeed(0.05f);
-        mSpeedometerView.setEnergyLevelChangeSpeed(0.3f);
+        mSpeedometerView.setArrowAccelerationSpeed(33.0f);
+        mSpeedometerView.setArrowAttenuationSpeed(1.7f);
+        mSpeedometerView.setEnergyLevelChangeSpeed(10.0f);
         mSpeedometerView.setEnergyLevel(100.0f);
+        mSpeedometerView.setSpeedChangeNotifiedOnlyOnChange(true);
+        mSpeedometerView.setSpeedChangeMaximumRate(10.0f);
         setOnClickListeners();
         setOnSpeedChangeListener();
     }
@@ -0,0 +1,151 @@
+package com.vitaliyhtc.speedometerview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.ColorMatrix;
+import android.graphics.ColorMatrixColorFilter;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+/**
+ * Oil can icon and energy level line. Color of both goes from green to red when can is empty,
+ * transition and blinking are animated by the caller through {@link #setColorFilterStep(int)}
+ * and {@link #setAlpha(int)}.
+ */
+class OilCanAndLevelLayerRenderer implements GaugeLayerRenderer {
+
+    static final float ENERGY_LEVEL_CAN_EMPTY = 9.0f;
+    static final float ENERGY_LEVEL_BLINK = 30.0f;
+
+    private static final float OIL_AND_LEVEL_VERTICAL_POSITION_TO_VIEW_HEIGHT_MULTIPLIER = (float) 1 / 2;
+    private static final float OIL_AND_LEVEL_WIDTH_FROM_VIEW_WIDTH_MULTIPLIER = (float) 1 / 4;
+
+    // RGBATxRGBA
+    private static final float[] OIL_CAN_COLOR_MATRIX_GREEN = new float[]{
+            0, 0, 0, 0, 0,
+            0, 0, 0, 0, 255,
+            0, 0, 0, 0, 0,
+            0, 0, 0, 1, 0 };
+    private static final float[] OIL_CAN_COLOR_MATRIX_RED = new float[]{
+            0, 0, 0, 0, 255,
+            0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0,
+            0, 0, 0, 1, 0 };
+    // Green to red transition uses precomputed filters, 2 seconds at 60 fps are 120 frames.
+    static final int OIL_CAN_COLOR_FILTER_STEPS = 64;
+
+    // Shared by all instances, immutable after class initialization.
+    private static final ColorFilter[] OIL_CAN_COLOR_FILTERS = createOilCanColorFilters();
+
+    private final Paint mOilCanPaint;
+    private final Rect mOilCanRect;
+    private final Paint mLevelPaint;
+    private Bitmap mOilCanBitmap;
+    private ColorFilter mColorFilter;
+
+    private int mWidth;
+    private int mHeight;
+    private int mCenterX;
+    private int mCenterY;
+    private int mOilCanAndLevelViewWidth;
+    private int mOilCanAndLevelViewHeight;
+    private int mEnergyLevelXOffset;
+
+    OilCanAndLevelLayerRenderer() {
+        mOilCanPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mOilCanRect = new Rect();
+        mLevelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mColorFilter = OIL_CAN_COLOR_FILTERS[0];
+
+        mLevelPaint.setColor(0xff000000);
+    }
+
+    private static ColorFilter[] createOilCanColorFilters(){
+        ColorFilter[] colorFilters = new ColorFilter[OIL_CAN_COLOR_FILTER_STEPS + 1];
+        float[] cmData = new float[SpeedometerMath.COLOR_MATRIX_SIZE];
+        for (int i = 0; i <= OIL_CAN_COLOR_FILTER_STEPS; i++) {
+            SpeedometerMath.interpolateColorMatrix((float) i / OIL_CAN_COLOR_FILTER_STEPS,
+                    OIL_CAN_COLOR_MATRIX_GREEN, OIL_CAN_COLOR_MATRIX_RED, cmData);
+            colorFilters[i] = new ColorMatrixColorFilter(new ColorMatrix(cmData));
+        }
+        return colorFilters;
+    }
+
+    /**
+     * @param oilCanBitmap icon, or null to draw only energy level line
+     */
+    void setOilCanBitmap(Bitmap oilCanBitmap){
+        mOilCanBitmap = oilCanBitmap;
+    }
+
+    /**
+     * @param step 0 - green, {@link #OIL_CAN_COLOR_FILTER_STEPS} - red
+     * @return true if color changed and layer must be redrawn
+     */
+    boolean setColorFilterStep(int step){
+        ColorFilter colorFilter = OIL_CAN_COLOR_FILTERS[step];
+        if (colorFilter != mColorFilter) {
+            mColorFilter = colorFilter;
+            return true;
+        }
+        return false;
+    }
+
+    void setAlpha(int alpha){
+        mOilCanPaint.setAlpha(alpha);
+        mLevelPaint.setAlpha(alpha);
+    }
+
+    // size oil can icon is drawn at, bitmap of this size is drawn without scaling and filtering
+    int getOilCanWidth(){
+        return mOilCanRect.width();
+    }
+
+    int getOilCanHeight(){
+        return mOilCanRect.height();
+    }
+
+    @Override
+    public void setSize(int width, int height) {
+        mWidth = width;
+        mHeight = height;
+        mCenterX = mWidth/2;
+        mCenterY = (int) (OIL_AND_LEVEL_VERTICAL_POSITION_TO_VIEW_HEIGHT_MULTIPLIER * mCenterX);
+
+        mOilCanAndLevelViewWidth = (int) (mWidth * OIL_AND_LEVEL_WIDTH_FROM_VIEW_WIDTH_MULTIPLIER);
+        mOilCanAndLevelViewHeight = mOilCanAndLevelViewWidth / 2;
+
+        mOilCanRect.set(
+                mCenterX - mOilCanAndLevelViewWidth / 2,
+                mCenterY - mOilCanAndLevelViewHeight / 3,
+                mCenterX - mOilCanAndLevelViewWidth / 2 + mOilCanAndLevelViewHeight * 2 / 3,
+                mCenterY + mOilCanAndLevelViewHeight / 3);
+
+        mLevelPaint.setStrokeWidth(mWidth / DialLayerRenderer.STROKE_WIDTH_FROM_VIEW_WIDTH_DIVIDER);
+        mEnergyLevelXOffset = mOilCanAndLevelViewWidth / 2 - mOilCanAndLevelViewHeight * 15 / 24;
+    }
+
+    @Override
+    public void draw(Canvas canvas, GaugeStyle style, float speed, float energyLevel) {
+        mOilCanPaint.setColorFilter(mColorFilter);
+        mLevelPaint.setColorFilter(mColorFilter);
+
+        if (mOilCanBitmap != null) {
+            // prescaled bitmap can differ from rect by a pixel because of rounding
+            if (Math.abs(mOilCanBitmap.getWidth() - mOilCanRect.width()) <= 1
+                    && Math.abs(mOilCanBitmap.getHeight() - mOilCanRect.height()) <= 1) {
+                canvas.drawBitmap(mOilCanBitmap, mOilCanRect.left, mOilCanRect.top, mOilCanPaint);
+            } else {
+                canvas.drawBitmap(mOilCanBitmap, null, mOilCanRect, mOilCanPaint);
+            }
+        }
+
+        canvas.drawLine(
+                mCenterX - mEnergyLevelXOffset,
+                mCenterY,
+                mCenterX - mEnergyLevelXOffset + energyLevel * (mEnergyLevelXOffset+mOilCanAndLevelViewWidth / 2) / 100,
+                mCenterY,
+                mLevelPaint);
+    }
+}
@@ -0,0 +1,69 @@
+package com.vitaliyhtc.speedometerview;
+
+/**
+ * Decides which oil can animations of {@link SpeedometerView} run for energy level drawn on
+ * a frame: oil can turns red when can becomes empty, green when it is refilled, and blinks on
+ * low energy level. Animators themselves are owned by the view.
+ */
+final class OilCanAnimationState {
+
+    static final int START_GREEN_TO_RED = 1;
+    static final int START_RED_TO_GREEN = 1 << 1;
+    static final int START_BLINK = 1 << 2;
+    static final int STOP_BLINK = 1 << 3;
+
+    private float mPreviousEnergyLevel = 100;
+    private boolean isBlinking;
+
+    /**
+     * @param isBlinkAllowed false when adaptive quality turned blinking off
+     * @return combination of START_* and STOP_* flags, 0 if nothing changes
+     */
+    int update(float energyLevel, boolean isBlinkAllowed) {
+        int changes = 0;
+        if (mPreviousEnergyLevel < OilCanAndLevelLayerRenderer.ENERGY_LEVEL_CAN_EMPTY
+                && energyLevel >= OilCanAndLevelLayerRenderer.ENERGY_LEVEL_CAN_EMPTY) {
+            changes |= START_RED_TO_GREEN;
+        }
+        if (mPreviousEnergyLevel > OilCanAndLevelLayerRenderer.ENERGY_LEVEL_CAN_EMPTY
+                && energyLevel <= OilCanAndLevelLayerRenderer.ENERGY_LEVEL_CAN_EMPTY) {
+            changes |= START_GREEN_TO_RED;
+        }
+        mPreviousEnergyLevel = energyLevel;
+
+        if (energyLevel < OilCanAndLevelLayerRenderer.ENERGY_LEVEL_BLINK && isBlinkAllowed) {
+            if (!isBlinking) {
+                isBlinking = true;
+                changes |= START_BLINK;
+            }
+        } else if (isBlinking) {
+            isBlinking = false;
+            changes |= STOP_BLINK;
+        }
+        return changes;
+    }
+
+    /**
+     * @return true if blinking was running, then caller cancels blink animator
+     */
+    boolean stopBlink() {
+        boolean wasBlinking = isBlinking;
+        isBlinking = false;
+        return wasBlinking;
+    }
+
+    /**
+     * New energy level is shown without color transition, e.g. after state is rebound.
+     */
+    void reset(float energyLevel) {
+        mPreviousEnergyLevel = energyLevel;
+    }
+
+    /**
+     * @param fraction blink animator fraction, it goes 0 -> 1 -> 0
+     * @return oil can and level alpha, 255 -> 0 -> 255
+     */
+    static int getBlinkAlpha(float fraction) {
+        return (int) ((1 - fraction) * 255);
+    }
+}
@@ -0,0 +1,142 @@
+package com.vitaliyhtc.speedometerview;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Notifies {@link SpeedometerView.SpeedChangeListener}s of animated speed with dispatch options
+ * of {@link SpeedometerView}: only on change, minimum delta, maximum rate and executor.
+ * <p>
+ * Listeners are notified from array snapshot set when list changes, so dispatch doesn't
+ * allocate and isn't affected by listeners removed meanwhile. Must be used on UI thread,
+ * except {@link #setListeners} which is safe to call from any thread.
+ */
+final class SpeedChangeDispatcher {
+
+    private volatile SpeedometerView.SpeedChangeListener[] mListeners = new SpeedometerView.SpeedChangeListener[0];
+    private boolean isNotifiedOnlyOnChange;
+    private int mMinimumDelta;
+    private long mMinimumIntervalNanos;
+    private Executor mExecutor;
+    // null when metrics are disabled
+    private GaugeMetrics mMetrics;
+
+    private boolean hasDispatchedSpeed;
+    private int mLastDispatchedSpeed;
+    private long mLastDispatchTimeNanos;
+    private volatile int mPendingSpeed;
+    private final AtomicBoolean isDispatchScheduled = new AtomicBoolean();
+
+    private final Runnable mDispatchRunnable = new Runnable() {
+        @Override
+        public void run() {
+            // flag is cleared before reading value, so newer value is delivered either now or
+            // by the next scheduled run
+            isDispatchScheduled.set(false);
+            notifyListeners(mPendingSpeed);
+        }
+    };
+
+    void setListeners(SpeedometerView.SpeedChangeListener[] listeners) {
+        mListeners = listeners;
+    }
+
+    void setNotifiedOnlyOnChange(boolean notifiedOnlyOnChange) {
+        isNotifiedOnlyOnChange = notifiedOnlyOnChange;
+    }
+
+    void setMinimumDelta(int minimumDelta) {
+        mMinimumDelta = minimumDelta;
+    }
+
+    void setMinimumIntervalNanos(long minimumIntervalNanos) {
+        mMinimumIntervalNanos = minimumIntervalNanos;
+    }
+
+    void setExecutor(Executor executor) {
+        mExecutor = executor;
+    }
+
+    void setMetrics(GaugeMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    /**
+     * Forgets previously delivered speed, the next dispatch isn't limited by it.
+     */
+    void reset() {
+        hasDispatchedSpeed = false;
+    }
+
+    /**
+     * Restores default dispatch options: every frame, on UI thread.
+     */
+    void resetOptions() {
+        isNotifiedOnlyOnChange = false;
+        mMinimumDelta = 0;
+        mMinimumIntervalNanos = 0;
+        mExecutor = null;
+    }
+
+    /**
+     * Applies dispatch options and notifies listeners directly or through executor.
+     *
+     * @param isFinal last value before animation loop is parked, it skips minimum delta and
+     *                maximum rate limits, so listeners always end up with the final speed.
+     */
+    void dispatch(int speed, long frameTimeNanos, boolean isFinal) {
+        if (mListeners.length == 0) {
+            return;
+        }
+        boolean isChanged = !hasDispatchedSpeed || speed != mLastDispatchedSpeed;
+        if (!isChanged && isNotifiedOnlyOnChange) {
+            return;
+        }
+        if (!isFinal && hasDispatchedSpeed) {
+            if (Math.abs(speed - mLastDispatchedSpeed) < mMinimumDelta) {
+                return;
+            }
+            if (frameTimeNanos - mLastDispatchTimeNanos < mMinimumIntervalNanos) {
+                return;
+            }
+        }
+        hasDispatchedSpeed = true;
+        mLastDispatchedSpeed = speed;
+        mLastDispatchTimeNanos = frameTimeNanos;
+
+        Executor executor = mExecutor;
+        if (executor == null) {
+            long dispatchStartNanos = mMetrics != null ? System.nanoTime() : 0;
+            notifyListeners(speed);
+            if (mMetrics != null) {
+                mMetrics.getListenerDispatchHistogram().record(System.nanoTime() - dispatchStartNanos);
+            }
+        } else {
+            // only the newest value is delivered if executor is slower than animation
+            mPendingSpeed = speed;
+            if (isDispatchScheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(mDispatchRunnable);
+                } catch (RuntimeException e) {
+                    // e.g. RejectedExecutionException after shutdown, next dispatch tries again
+                    isDispatchScheduled.set(false);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void notifyListeners(int speed) {
+        boolean isTraced = GaugeTrace.isEnabled;
+        if (isTraced) {
+            GaugeTrace.beginSection(GaugeTrace.SECTION_DISPATCH);
+        }
+        SpeedometerView.SpeedChangeListener[] listeners = mListeners;
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].onSpeedChanged(speed);
+        }
+        if (isTraced) {
+            GaugeTrace.endSection();
+        }
+    }
+}
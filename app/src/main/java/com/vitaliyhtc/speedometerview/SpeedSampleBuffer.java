@@ -0,0 +1,168 @@
+package com.vitaliyhtc.speedometerview;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ring buffer of timestamped (speed, energy level) samples with linear interpolation between them.
+ * Samples are kept in primitive atomic arrays, nothing is allocated after construction.
+ * <p>
+ * Samples can be submitted from any thread, submitters are serialized with each other.
+ * {@link #sample(long, float[])} doesn't lock and must be called from one thread (UI thread).
+ * Slots are guarded by sequence counter (seqlock): it is odd while writer changes them, reader
+ * retries if counter was odd or changed during its read, so it never mixes values of two writes.
+ * Slots are read and written as volatile elements, so the second check of the counter can't be
+ * reordered before the reads of slots.
+ */
+public class SpeedSampleBuffer {
+
+    public static final int SPEED = 0;
+    public static final int ENERGY_LEVEL = 1;
+
+    private final AtomicLongArray mTimestamps;
+    // float bits
+    private final AtomicIntegerArray mSpeeds;
+    private final AtomicIntegerArray mEnergyLevels;
+    private final int mSize;
+    private final int mMask;
+
+    private final Object mWriteLock = new Object();
+    // Odd while slots are being written, incremented by 2 for every change.
+    private volatile long mSequence;
+    // Count of samples ever written.
+    private volatile long mWriteCount;
+    private volatile long mNewestTimestamp = Long.MIN_VALUE;
+
+    /**
+     * @param capacity number of samples kept, rounded up to power of two
+     */
+    public SpeedSampleBuffer(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Capacity must be at least 2, found " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        mTimestamps = new AtomicLongArray(size);
+        mSpeeds = new AtomicIntegerArray(size);
+        mEnergyLevels = new AtomicIntegerArray(size);
+        mSize = size;
+        mMask = size - 1;
+    }
+
+    /**
+     * Appends batch of samples. Samples not newer than already submitted ones are skipped.
+     *
+     * @param timestampsNanos sample times, in {@link System#nanoTime()} time base
+     * @param speeds          speed values
+     * @param energyLevels    energy level values, null or NaN values if energy level isn't known
+     * @param offset          index of first sample in arrays
+     * @param count           number of samples
+     * @return number of accepted samples
+     */
+    public int submit(long[] timestampsNanos, float[] speeds, float[] energyLevels, int offset, int count) {
+        int accepted = 0;
+        synchronized (mWriteLock) {
+            long sequence = mSequence;
+            mSequence = sequence + 1;
+            long writeCount = mWriteCount;
+            long newestTimestamp = mNewestTimestamp;
+            for (int i = offset; i < offset + count; i++) {
+                long timestamp = timestampsNanos[i];
+                if (timestamp <= newestTimestamp) {
+                    continue;
+                }
+                int index = (int) (writeCount & mMask);
+                mTimestamps.set(index, timestamp);
+                mSpeeds.set(index, Float.floatToRawIntBits(speeds[i]));
+                mEnergyLevels.set(index, Float.floatToRawIntBits(energyLevels != null ? energyLevels[i] : Float.NaN));
+                newestTimestamp = timestamp;
+                writeCount++;
+                accepted++;
+            }
+            mNewestTimestamp = newestTimestamp;
+            mWriteCount = writeCount;
+            mSequence = sequence + 2;
+        }
+        return accepted;
+    }
+
+    public void clear() {
+        synchronized (mWriteLock) {
+            long sequence = mSequence;
+            mSequence = sequence + 1;
+            mNewestTimestamp = Long.MIN_VALUE;
+            mWriteCount = 0;
+            mSequence = sequence + 2;
+        }
+    }
+
+    public boolean isEmpty() {
+        return mWriteCount == 0;
+    }
+
+    /**
+     * @return timestamp of newest sample, or {@link Long#MIN_VALUE} if buffer is empty
+     */
+    public long getNewestTimestamp() {
+        return mNewestTimestamp;
+    }
+
+    /**
+     * Interpolates values at given time. Before oldest kept sample the oldest one is used,
+     * after newest sample the newest one is held, there is no extrapolation.
+     *
+     * @param timeNanos time in {@link System#nanoTime()} time base
+     * @param out       array where values are written at {@link #SPEED} and {@link #ENERGY_LEVEL}
+     * @return false if buffer is empty and out wasn't changed
+     */
+    public boolean sample(long timeNanos, float[] out) {
+        while (true) {
+            long sequence = mSequence;
+            if ((sequence & 1) != 0) {
+                // writer holds the lock only for a batch copy
+                Thread.yield();
+                continue;
+            }
+            long writeCount = mWriteCount;
+            if (writeCount == 0) {
+                if (mSequence == sequence) {
+                    return false;
+                }
+                continue;
+            }
+            long oldest = Math.max(0, writeCount - mSize);
+            // search from newest sample, renderer usually lags behind it only by latency window
+            long i = writeCount - 1;
+            while (i > oldest && mTimestamps.get((int) (i & mMask)) > timeNanos) {
+                i--;
+            }
+            int index = (int) (i & mMask);
+            long timestamp = mTimestamps.get(index);
+            float speed = Float.intBitsToFloat(mSpeeds.get(index));
+            float energyLevel = Float.intBitsToFloat(mEnergyLevels.get(index));
+            long nextTimestamp = 0;
+            float nextSpeed = 0;
+            float nextEnergyLevel = 0;
+            boolean isInterpolated = timestamp < timeNanos && i < writeCount - 1;
+            if (isInterpolated) {
+                int nextIndex = (int) ((i + 1) & mMask);
+                nextTimestamp = mTimestamps.get(nextIndex);
+                nextSpeed = Float.intBitsToFloat(mSpeeds.get(nextIndex));
+                nextEnergyLevel = Float.intBitsToFloat(mEnergyLevels.get(nextIndex));
+            }
+            // slots read above could be overwritten meanwhile, then read them again
+            if (mSequence != sequence) {
+                continue;
+            }
+            if (isInterpolated) {
+                float fraction = (float) (timeNanos - timestamp) / (nextTimestamp - timestamp);
+                speed += fraction * (nextSpeed - speed);
+                if (!Float.isNaN(energyLevel) && !Float.isNaN(nextEnergyLevel)) {
+                    energyLevel += fraction * (nextEnergyLevel - energyLevel);
+                }
+            }
+            out[SPEED] = speed;
+            out[ENERGY_LEVEL] = energyLevel;
+            return true;
+        }
+    }
+}
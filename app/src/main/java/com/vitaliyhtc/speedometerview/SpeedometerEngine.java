@@ -0,0 +1,231 @@
+package com.vitaliyhtc.speedometerview;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pedals, speed and energy level simulation used by {@link SpeedometerView}.
+ * Doesn't depend on Android classes, so it can be stepped, tested and benchmarked on plain JVM.
+ * <p>
+ * {@link #step(float)} and setters of rates must be called from one thread,
+ * pedals and target speed can be set from any thread.
+ */
+public class SpeedometerEngine {
+
+    // Pending target speed is passed as raw float bits. User values are never NaN,
+    // so two NaN patterns are used as markers.
+    private static final int NO_PENDING_TARGET_SPEED = 0x7fc00001;
+    private static final int RELEASE_TARGET_SPEED = 0x7fc00002;
+
+    private float mSpeed;
+    private float mEnergyLevel;
+    private float mMaximumSpeed;
+    private float mAccelerationSpeed;
+    private float mAttenuationSpeed;
+    private float mEnergyLevelChangeSpeed;
+
+    private volatile boolean isTrottlePedalPressed;
+    private volatile boolean isBrakePedalPressed;
+
+    // Latest value handoff: writers overwrite, step() takes the newest one, stale values are lost.
+    private final AtomicInteger mPendingTargetSpeedBits = new AtomicInteger(NO_PENDING_TARGET_SPEED);
+    // Incremented by every release, see setTargetSpeed(float, int).
+    private final AtomicInteger mReleaseEpoch = new AtomicInteger();
+    private boolean isTargetSpeedMode;
+
+    /**
+     * Advances simulation.
+     *
+     * @param deltaSeconds time passed since previous step, in seconds
+     */
+    public void step(float deltaSeconds){
+        int pendingTargetSpeedBits = mPendingTargetSpeedBits.getAndSet(NO_PENDING_TARGET_SPEED);
+        if (pendingTargetSpeedBits == RELEASE_TARGET_SPEED) {
+            isTargetSpeedMode = false;
+        } else if (pendingTargetSpeedBits != NO_PENDING_TARGET_SPEED) {
+            isTargetSpeedMode = true;
+            mSpeed = Float.intBitsToFloat(pendingTargetSpeedBits);
+        }
+
+        if (isTargetSpeedMode) {
+            if(mSpeed > mMaximumSpeed){
+                mSpeed = mMaximumSpeed;
+            }
+            if(mSpeed<0){
+                mSpeed = 0;
+            }
+            return;
+        }
+
+        if (isTrottlePedalPressed && mSpeed < mMaximumSpeed) {
+            mSpeed+=mAccelerationSpeed*deltaSeconds;
+            mEnergyLevel-=mEnergyLevelChangeSpeed*deltaSeconds;
+        }
+        if (isBrakePedalPressed && mSpeed > 0) {
+            mSpeed-=2*mAccelerationSpeed*deltaSeconds;
+        }
+        if (!isBrakePedalPressed && !isTrottlePedalPressed && mSpeed > 0) {
+            mSpeed-=mAttenuationSpeed*deltaSeconds;
+        }
+        if(mSpeed > mMaximumSpeed){
+            mSpeed = mMaximumSpeed;
+        }
+        if(mSpeed<0){
+            mSpeed = 0;
+        }
+        if(mEnergyLevel<0){
+            mEnergyLevel = 0;
+        }
+    }
+
+    /**
+     * @return true if next {@link #step(float)} can't change speed or energy level.
+     */
+    public boolean isConverged(){
+        if (hasPendingTargetSpeed()) {
+            return false;
+        }
+        return isTargetSpeedMode
+                || !isTrottlePedalPressed && !isBrakePedalPressed && (mSpeed <= 0 || mAttenuationSpeed <= 0);
+    }
+
+    /**
+     * Sets speed from external source (sensor, GPS, ...), pedals are ignored until
+     * {@link #releaseTargetSpeed()}. Can be called from any thread, doesn't block.
+     * Only the newest value set before next {@link #step(float)} is used.
+     */
+    public void setTargetSpeed(float speed){
+        if (Float.isNaN(speed)) {
+            throw new IllegalArgumentException("Target speed must be a number, found " + speed);
+        }
+        mPendingTargetSpeedBits.set(Float.floatToRawIntBits(speed));
+    }
+
+    /**
+     * Sets target speed read from source which can be released concurrently, e.g. samples buffer.
+     * Speed is dropped if {@link #releaseTargetSpeed()} was called since releaseEpoch was taken,
+     * so value read before release doesn't override it.
+     *
+     * @param releaseEpoch {@link #getReleaseEpoch()} taken before speed was read from source
+     * @return false if speed was dropped
+     */
+    public boolean setTargetSpeed(float speed, int releaseEpoch){
+        if (Float.isNaN(speed)) {
+            throw new IllegalArgumentException("Target speed must be a number, found " + speed);
+        }
+        int speedBits = Float.floatToRawIntBits(speed);
+        while (true) {
+            int pendingTargetSpeedBits = mPendingTargetSpeedBits.get();
+            // release increments epoch before it sets its marker, so the marker change fails
+            // compareAndSet below if release comes after the epoch check
+            if (pendingTargetSpeedBits == RELEASE_TARGET_SPEED || mReleaseEpoch.get() != releaseEpoch) {
+                return false;
+            }
+            if (mPendingTargetSpeedBits.compareAndSet(pendingTargetSpeedBits, speedBits)) {
+                return true;
+            }
+        }
+    }
+
+    public int getReleaseEpoch(){
+        return mReleaseEpoch.get();
+    }
+
+    /**
+     * Returns speed control to pedals on next {@link #step(float)}. Can be called from any thread.
+     */
+    public void releaseTargetSpeed(){
+        mReleaseEpoch.incrementAndGet();
+        mPendingTargetSpeedBits.set(RELEASE_TARGET_SPEED);
+    }
+
+    public boolean hasPendingTargetSpeed(){
+        return mPendingTargetSpeedBits.get() != NO_PENDING_TARGET_SPEED;
+    }
+
+    public boolean isTargetSpeedMode(){
+        return isTargetSpeedMode;
+    }
+
+    public float getSpeed() {
+        return mSpeed;
+    }
+
+    public void setSpeed(float speed) {
+        mSpeed = speed;
+    }
+
+    public float getEnergyLevel() {
+        return mEnergyLevel;
+    }
+
+    public void setEnergyLevel(float energyLevel) {
+        mEnergyLevel = energyLevel;
+    }
+
+    public float getMaximumSpeed() {
+        return mMaximumSpeed;
+    }
+
+    public void setMaximumSpeed(float maximumSpeed) {
+        mMaximumSpeed = maximumSpeed;
+    }
+
+    public float getAccelerationSpeed() {
+        return mAccelerationSpeed;
+    }
+
+    /**
+     * @param accelerationSpeed speed units per second gained while trottle pedal is pressed,
+     *                          brake pedal decreases speed twice as fast.
+     */
+    public void setAccelerationSpeed(float accelerationSpeed) {
+        mAccelerationSpeed = accelerationSpeed;
+    }
+
+    public float getAttenuationSpeed() {
+        return mAttenuationSpeed;
+    }
+
+    /**
+     * @param attenuationSpeed speed units per second lost while no pedal is pressed.
+     */
+    public void setAttenuationSpeed(float attenuationSpeed) {
+        mAttenuationSpeed = attenuationSpeed;
+    }
+
+    public float getEnergyLevelChangeSpeed() {
+        return mEnergyLevelChangeSpeed;
+    }
+
+    /**
+     * @param energyLevelChangeSpeed energy level units per second consumed while
+     *                               trottle pedal is pressed.
+     */
+    public void setEnergyLevelChangeSpeed(float energyLevelChangeSpeed) {
+        mEnergyLevelChangeSpeed = energyLevelChangeSpeed;
+    }
+
+    public boolean isTrottlePedalPressed() {
+        return isTrottlePedalPressed;
+    }
+
+    public boolean isBrakePedalPressed() {
+        return isBrakePedalPressed;
+    }
+
+    public void pressTrottlePedal(){
+        isTrottlePedalPressed = true;
+    }
+
+    public void releaseTrottlePedal(){
+        isTrottlePedalPressed = false;
+    }
+
+    public void pressBrakePedal(){
+        isBrakePedalPressed = true;
+    }
+
+    public void releaseBrakePedal(){
+        isBrakePedalPressed = false;
+    }
+}
@@ -0,0 +1,64 @@
+package com.vitaliyhtc.speedometerview;
+
+/**
+ * Calculations shared by {@link SpeedometerView} layers. No Android dependencies,
+ * so they can be benchmarked on plain JVM.
+ */
+public final class SpeedometerMath {
+
+    static final int DEFAULT_SPEED_NOTCHING_INTERVAL = 10;
+
+    // 4x5 matrix, see android.graphics.ColorMatrix
+    public static final int COLOR_MATRIX_SIZE = 20;
+
+    private SpeedometerMath() {
+    }
+
+    // Numbers bigger than 2000 no have sense, better idea to add x10 x100 x1000 multiplier mark.
+    // 03/04/17 you can set maximum speed restriction and no need to calculate these values.
+    // Added 2000 top limit. Can be easy changed later.
+    public static int getRevalidatedSpeedNotchingInterval(int maximumSpeed){
+        int revalidatedSpeedNotchingInterval;
+        if (maximumSpeed <= 160) {
+            revalidatedSpeedNotchingInterval = DEFAULT_SPEED_NOTCHING_INTERVAL;
+        } else if (maximumSpeed <= 300) {
+            revalidatedSpeedNotchingInterval = DEFAULT_SPEED_NOTCHING_INTERVAL * 2;
+        } else if (maximumSpeed <= 600) {
+            revalidatedSpeedNotchingInterval = DEFAULT_SPEED_NOTCHING_INTERVAL * 4;
+        } else if (maximumSpeed <= 1200) {
+            revalidatedSpeedNotchingInterval = DEFAULT_SPEED_NOTCHING_INTERVAL * 10;
+        } else {
+            revalidatedSpeedNotchingInterval = DEFAULT_SPEED_NOTCHING_INTERVAL * 20;
+        }
+        return revalidatedSpeedNotchingInterval;
+    }
+
+    /**
+     * Angle between left horizontal and arrow. Last notch is not at 180 degrees, there is
+     * one more angle part after it.
+     *
+     * @return angle in radians
+     */
+    public static double getArrowAngle(float speed, int maximumSpeed, int notchesCount){
+        return Math.PI * (speed / maximumSpeed) * ((float) notchesCount /((float) notchesCount +1));
+    }
+
+    /**
+     * Linear interpolation of two color matrices.
+     *
+     * @param cmData array of {@link #COLOR_MATRIX_SIZE} elements the result is written to
+     */
+    public static void interpolateColorMatrix(float fraction, float[] cmDataStart, float[] cmDataEnd, float[] cmData){
+        for (int i = 0; i < COLOR_MATRIX_SIZE; i++) {
+            cmData[i] = cmDataStart[i] + fraction * (cmDataEnd[i] - cmDataStart[i]);
+        }
+    }
+
+    public static double radiansToDegrees(double radians){
+        return radians*(180/Math.PI);
+    }
+
+    public static double degreesToRadians(double degrees){
+        return degrees*(Math.PI/180);
+    }
+}
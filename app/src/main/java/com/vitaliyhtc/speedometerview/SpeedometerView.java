@@ -1,97 +1,134 @@
 package com.vitaliyhtc.speedometerview;
 
-import android.animation.TypeEvaluator;
 import android.animation.ValueAnimator;
 import android.content.Context;
 import android.content.res.TypedArray;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
-import android.graphics.ColorFilter;
-import android.graphics.ColorMatrix;
-import android.graphics.ColorMatrixColorFilter;
-import android.graphics.Matrix;
-import android.graphics.Paint;
-import android.graphics.Path;
-import android.graphics.Rect;
-import android.graphics.RectF;
-import android.graphics.Typeface;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.util.AttributeSet;
 import android.util.TypedValue;
+import android.view.Choreographer;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.WindowManager;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class SpeedometerView extends ViewGroup {
 
-    private static final int DEFAULT_BACKGROUND_COLOR = 0xffffffff;
-    private static final int DEFAULT_DIGITS_COLOR = 0xff212121;
-    private static final int DEFAULT_SECTOR_BEFORE_ARROW_COLOR = 0xff00897b;
-    private static final int DEFAULT_SECTOR_AFTER_ARROW_COLOR = 0xff01479b;
-    private static final int DEFAULT_OUTER_CIRCLE_COLOR = 0xff212121;
-    private static final int DEFAULT_ARROW_COLOR = 0xff212121;
-
-    private static final float DEFAULT_ARROW_RADIUS = 96.0f;
-    private static final float DEFAULT_INTERNAL_SECTOR_RADIUS = 48.0f;
-    private static final float DEFAULT_EXTERNAL_SECTOR_RADIUS = 64.0f;
-
-    private static final int DEFAULT_SPEED_NOTCHING_INTERVAL = 10;
-    // next 2 values must be multiples of DEFAULT_SPEED_NOTCHING_INTERVAL
-    private static final int DEFAULT_BOTTOM_SPEEDOMETER_SPEED = 60;
-    private static final int DEFAULT_MAXIMUM_SPEEDOMETER_SPEED = 120;
-    private static final int DEFAULT_TOP_SPEEDOMETER_SPEED = 2000;
-
-    private static final int STROKE_WIDTH_FROM_VIEW_WIDTH_DIVIDER = 72;
-    private static final int OUTER_CIRCLE_MARGIN_TO_STROKE_WIDTH_MULTIPLIER = 2;
-    private static final int NOTCHING_LENGTH_TO_STROKE_WIDTH_MULTIPLIER = 3;
-    private static final int DIGITS_SIZE_FROM_VIEW_WIDTH_DIVIDER = 24;
-    private static final int ARROW_CENTER_RADIUS_FROM_VIEW_WIDTH_DIVIDER = 20;
-    private static final int ARROW_WIDTH_FROM_VIEW_WIDTH_DIVIDER = 40;
-
-    private static final float OIL_AND_LEVEL_VERTICAL_POSITION_TO_VIEW_HEIGHT_MULTIPLIER = (float) 1 / 2;
-    private static final float OIL_AND_LEVEL_WIDTH_FROM_VIEW_WIDTH_MULTIPLIER = (float) 1 / 4;
-
-    private static final float ENERGY_LEVEL_CAN_EMPTY = 9.0f;
-    private static final float ENERGY_LEVEL_BLINK = 30.0f;
     private static final float ENERGY_LEVEL_BLINK_ALPHA_STEP = 0.05f;
 
+    private static final long OIL_CAN_COLOR_TRANSITION_DURATION_MS = 2000;
 
+    // Choreographer is available since API 16, older devices use postDelayed() with this delay.
+    private static final long FALLBACK_FRAME_DELAY_MS = 16;
 
-    private int mBackgroundColor;
-    private int mDigitsColor;
-    private int mSectorBeforeArrowColor;
-    private int mSectorAfterArrowColor;
-    private float mArrowRadius;
-    private int mOuterCircleColor;
-    private int mArrowColor;
-    private float mInternalSectorRadius;
-    private float mExternalSectorRadius;
-    private int mMaximumSpeedometerSpeed;
+    private static final int SAMPLE_BUFFER_CAPACITY = 256;
 
+    public static final int RENDER_MODE_SOFTWARE = 0;
+    public static final int RENDER_MODE_HARDWARE = 1;
+    public static final int RENDER_MODE_AUTO = 2;
+    private static final int DEFAULT_RENDER_MODE = RENDER_MODE_AUTO;
 
+    private static final int LAYER_DIAL = 0;
+    private static final int LAYER_OIL_CAN_AND_LEVEL = 1;
+    private static final int LAYER_ARROW_AND_SECTORS = 2;
 
-    private DialSpeedometerView mDialSpeedometerView;
-    private ArrowAndSectorsView mArrowAndSectorsView;
-    private OilCanAndLevelView mOilCanAndLevelView;
 
 
+    private GaugeStyle mStyle;
+    private int mRenderMode;
+    // All layers are drawn by onDraw() of this view instead of child views.
+    private boolean isFlatRendering;
 
-    private float mSpeed;
-    private float mEnergyLevel;
-    private float mArrowAccelerationSpeed;
-    private float mArrowAttenuationSpeed;
-    private float mEnergyLevelChangeSpeed;
 
-    private volatile boolean isTrottlePedalPressed;
-    private volatile boolean isBrakePedalPressed;
-    private volatile boolean isSwitchedOn;
 
-    private int mNotchesCount;
+    private LayerView mDialSpeedometerView;
+    private LayerView mArrowAndSectorsView;
+    private LayerView mOilCanAndLevelView;
+
+    // Renderers are created before constructor body, setters called from XML constructor use them.
+    private final DialLayerRenderer mDialLayerRenderer = new DialLayerRenderer();
+    private final ArrowAndSectorsLayerRenderer mArrowAndSectorsLayerRenderer = new ArrowAndSectorsLayerRenderer();
+    private final OilCanAndLevelLayerRenderer mOilCanAndLevelLayerRenderer = new OilCanAndLevelLayerRenderer();
+
+    // gauge area inside of this view, all layers have its size
+    private int mGaugeLeft;
+    private int mGaugeTop;
+    private int mGaugeWidth;
+    private int mGaugeHeight;
+
+    // Notches, digits and outer arc don't depend on speed, so they are drawn once into
+    // offscreen bitmap and only copied on every frame. Gauges of the same style share it.
+    private GaugeResourceCache.DialLayer mDialLayer;
+    private final Canvas mDialCanvas = new Canvas();
+    private boolean isDialLayerDirty = true;
+
+    // Oil can icon decoded at the size it is drawn at, shared by gauges of the same size.
+    private GaugeResourceCache.OilCanBitmap mOilCanBitmap;
+
+    // Optional cache of arrow and sectors frames, null if disabled.
+    private ArrowFrameCache mArrowFrameCache;
+    private boolean isWindowAttached;
+
+    private final OilCanAnimationState mOilCanAnimationState = new OilCanAnimationState();
+    private ValueAnimator mColorMatrixValueAnimatorGreenToRed;
+    private ValueAnimator mColorMatrixValueAnimatorRedToGreen;
+    private ValueAnimator mAlphaBlinkValueAnimator;
 
+
+
+    // Created before constructor body, setters called from XML constructor use it.
+    private final SpeedometerEngine mEngine = new SpeedometerEngine();
+    private final SpeedSampleBuffer mSampleBuffer = new SpeedSampleBuffer(SAMPLE_BUFFER_CAPACITY);
+    private final SpeedChangeDispatcher mSpeedChangeDispatcher = new SpeedChangeDispatcher();
+    // samples, playback, engine and listeners part of animation tick
+    private final GaugeTicker mTicker = new GaugeTicker(mEngine, mSampleBuffer, mSpeedChangeDispatcher);
+
+    // display refresh interval, intended time between animation ticks
+    private long mFrameIntervalNanos = FALLBACK_FRAME_DELAY_MS * 1000000L;
+    // null when metrics are disabled, then nothing is measured
+    private GaugeMetrics mMetrics;
+    // null when adaptive quality is disabled, then gauge is always drawn at full quality
+    private AdaptiveQualityController mQualityController;
+    private int mAppliedQualityLevel = AdaptiveQualityController.LEVEL_FULL;
+    // trace counter names, created when tracing is used first time
+    private String mSpeedCounterName;
+    private String mEnergyLevelCounterName;
+
+    private volatile boolean isSwitchedOn;
+    // Gauge does nothing while it can't be seen, see updateSuspension().
+    // read by other threads, see wakeAnimator()
+    private volatile boolean isSuspended = true;
+    private int mWindowVisibility = View.GONE;
+    // Animation loop stops scheduling frames while nothing changes, see wakeAnimator().
+    private volatile boolean isAnimatorParked;
+    private final AtomicBoolean isWakeAnimatorPosted = new AtomicBoolean();
+    // View.post() of detached view can be never run before API 24, wake ups go through main looper.
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    // Listeners can be notified on executor thread, see setSpeedChangeExecutor(). Dispatcher
+    // gets array snapshot of the list every time it changes.
     private List<SpeedChangeListener> mSpeedChangeListenerList;
 
+    private Choreographer.FrameCallback mFrameCallback;
+    // If set, frames are requested from shared host instead of own frame callback.
+    private GaugeHost mGaugeHost;
+    // frame requests state in GaugeHost
+    final GaugeFrameQueue.Entry mHostFrameEntry = new GaugeFrameQueue.Entry() {
+        @Override
+        void onFrame(long frameTimeNanos) {
+            onAnimationFrame(frameTimeNanos);
+        }
+    };
+
     /**
      * Class constructor taking only context. Use this constructor to create
      * {@link SpeedometerView} objects from your own code.
@@ -118,28 +155,34 @@ public class SpeedometerView extends ViewGroup {
     public SpeedometerView(Context context, AttributeSet attrs) {
         super(context, attrs);
         setWillNotDraw(false);
+        setDefaults();
 
         TypedArray a = context.getTheme().obtainStyledAttributes(attrs, R.styleable.SpeedometerView, 0, 0);
         try{
-            mBackgroundColor = a.getColor(R.styleable.SpeedometerView_sv_backgroundColor, DEFAULT_BACKGROUND_COLOR);
-            mDigitsColor = a.getColor(R.styleable.SpeedometerView_sv_digitsColor, DEFAULT_DIGITS_COLOR);
-            mSectorBeforeArrowColor = a.getColor(R.styleable.SpeedometerView_sv_sectorBeforeArrowColor, DEFAULT_SECTOR_BEFORE_ARROW_COLOR);
-            mSectorAfterArrowColor = a.getColor(R.styleable.SpeedometerView_sv_sectorAfterArrowColor, DEFAULT_SECTOR_AFTER_ARROW_COLOR);
+            mStyle.setBackgroundColor(a.getColor(R.styleable.SpeedometerView_sv_backgroundColor, mStyle.getBackgroundColor()));
+            mStyle.setDigitsColor(a.getColor(R.styleable.SpeedometerView_sv_digitsColor, mStyle.getDigitsColor()));
+            mStyle.setSectorBeforeArrowColor(a.getColor(R.styleable.SpeedometerView_sv_sectorBeforeArrowColor, mStyle.getSectorBeforeArrowColor()));
+            mStyle.setSectorAfterArrowColor(a.getColor(R.styleable.SpeedometerView_sv_sectorAfterArrowColor, mStyle.getSectorAfterArrowColor()));
 
-            float preArrowRadius = a.getDimension(R.styleable.SpeedometerView_sv_arrowRadius, convertDpToPixels(DEFAULT_ARROW_RADIUS, context));
+            float preArrowRadius = a.getDimension(R.styleable.SpeedometerView_sv_arrowRadius, mStyle.getArrowRadius());
             setArrowRadius(preArrowRadius);
 
-            mOuterCircleColor = a.getColor(R.styleable.SpeedometerView_sv_outerCircleColor, DEFAULT_OUTER_CIRCLE_COLOR);
-            mArrowColor = a.getColor(R.styleable.SpeedometerView_sv_arrowColor, DEFAULT_ARROW_COLOR);
+            mStyle.setOuterCircleColor(a.getColor(R.styleable.SpeedometerView_sv_outerCircleColor, mStyle.getOuterCircleColor()));
+            mStyle.setArrowColor(a.getColor(R.styleable.SpeedometerView_sv_arrowColor, mStyle.getArrowColor()));
 
-            float preInternalSectorRadius = a.getDimension(R.styleable.SpeedometerView_sv_internalSectorRadius, convertDpToPixels(DEFAULT_INTERNAL_SECTOR_RADIUS, context));
+            float preInternalSectorRadius = a.getDimension(R.styleable.SpeedometerView_sv_internalSectorRadius, mStyle.getInternalSectorRadius());
             setInternalSectorRadius(preInternalSectorRadius);
 
-            float preExternalSectorRadius = a.getDimension(R.styleable.SpeedometerView_sv_externalSectorRadius, convertDpToPixels(DEFAULT_EXTERNAL_SECTOR_RADIUS, context));
+            float preExternalSectorRadius = a.getDimension(R.styleable.SpeedometerView_sv_externalSectorRadius, mStyle.getExternalSectorRadius());
             setExternalSectorRadius(preExternalSectorRadius);
 
-            int preMaximumSpeedometerSpeed = a.getInt(R.styleable.SpeedometerView_sv_maximumSpeedometerSpeed, DEFAULT_MAXIMUM_SPEEDOMETER_SPEED);
+            int preMaximumSpeedometerSpeed = a.getInt(R.styleable.SpeedometerView_sv_maximumSpeedometerSpeed, mStyle.getMaximumSpeedometerSpeed());
             setMaximumSpeedometerSpeed(preMaximumSpeedometerSpeed);
+
+            int preRenderMode = a.getInt(R.styleable.SpeedometerView_sv_renderMode, DEFAULT_RENDER_MODE);
+            setRenderMode(preRenderMode);
+
+            isFlatRendering = a.getBoolean(R.styleable.SpeedometerView_sv_flatRendering, false);
         } finally {
             a.recycle();
         }
@@ -154,153 +197,220 @@ public class SpeedometerView extends ViewGroup {
      ********************************************************************************************/
 
     public int getBackgroundColor() {
-        return mBackgroundColor;
+        return mStyle.getBackgroundColor();
     }
 
     public void setBackgroundColor(int backgroundColor) {
-        mBackgroundColor = backgroundColor;
+        mStyle.setBackgroundColor(backgroundColor);
         invalidate();
     }
 
     public int getDigitsColor() {
-        return mDigitsColor;
+        return mStyle.getDigitsColor();
     }
 
     public void setDigitsColor(int digitsColor) {
-        mDigitsColor = digitsColor;
-        invalidate();
+        mStyle.setDigitsColor(digitsColor);
+        invalidateDialLayer();
     }
 
     public int getSectorBeforeArrowColor() {
-        return mSectorBeforeArrowColor;
+        return mStyle.getSectorBeforeArrowColor();
     }
 
     public void setSectorBeforeArrowColor(int sectorBeforeArrowColor) {
-        mSectorBeforeArrowColor = sectorBeforeArrowColor;
-        invalidate();
+        mStyle.setSectorBeforeArrowColor(sectorBeforeArrowColor);
+        invalidateArrowAndSectorsLayer();
     }
 
     public int getSectorAfterArrowColor() {
-        return mSectorAfterArrowColor;
+        return mStyle.getSectorAfterArrowColor();
     }
 
     public void setSectorAfterArrowColor(int sectorAfterArrowColor) {
-        mSectorAfterArrowColor = sectorAfterArrowColor;
-        invalidate();
+        mStyle.setSectorAfterArrowColor(sectorAfterArrowColor);
+        invalidateArrowAndSectorsLayer();
     }
 
     public float getArrowRadius() {
-        return mArrowRadius;
+        return mStyle.getArrowRadius();
     }
 
     public void setArrowRadius(float arrowRadius) {
-        if (arrowRadius > 0) {
-            mArrowRadius = arrowRadius;
-        } else {
-            throw new IllegalArgumentException("Arrow radius must be positive, found " + arrowRadius);
-        }
-        invalidate();
+        mStyle.setArrowRadius(arrowRadius);
+        invalidateArrowAndSectorsLayer();
     }
 
     public int getOuterCircleColor() {
-        return mOuterCircleColor;
+        return mStyle.getOuterCircleColor();
     }
 
     public void setOuterCircleColor(int outerCircleColor) {
-        mOuterCircleColor = outerCircleColor;
-        invalidate();
+        mStyle.setOuterCircleColor(outerCircleColor);
+        invalidateDialLayer();
     }
 
     public int getArrowColor() {
-        return mArrowColor;
+        return mStyle.getArrowColor();
     }
 
     public void setArrowColor(int arrowColor) {
-        mArrowColor = arrowColor;
-        invalidate();
+        mStyle.setArrowColor(arrowColor);
+        invalidateArrowAndSectorsLayer();
     }
 
     public float getInternalSectorRadius() {
-        return mInternalSectorRadius;
+        return mStyle.getInternalSectorRadius();
     }
 
     public void setInternalSectorRadius(float internalSectorRadius) {
-        if(internalSectorRadius > 0){
-            mInternalSectorRadius = internalSectorRadius;
-        }else{
-            throw new IllegalArgumentException("Internal sector radius must be positive, found " + internalSectorRadius);
-        }
-        invalidate();
+        mStyle.setInternalSectorRadius(internalSectorRadius);
+        invalidateArrowAndSectorsLayer();
     }
 
     public float getExternalSectorRadius() {
-        return mExternalSectorRadius;
+        return mStyle.getExternalSectorRadius();
     }
 
     public void setExternalSectorRadius(float externalSectorRadius) {
-        if (externalSectorRadius > mInternalSectorRadius) {
-            mExternalSectorRadius = externalSectorRadius;
-        } else {
-            throw new IllegalArgumentException("External sector radius must be greater than internal sector radius, found " + externalSectorRadius);
-        }
-        invalidate();
+        mStyle.setExternalSectorRadius(externalSectorRadius);
+        invalidateArrowAndSectorsLayer();
     }
 
     public int getMaximumSpeedometerSpeed() {
-        return mMaximumSpeedometerSpeed;
+        return mStyle.getMaximumSpeedometerSpeed();
     }
 
     public void setMaximumSpeedometerSpeed(int maximumSpeedometerSpeed) {
-        int revalidatedInterval = getRevalidatedSpeedNotchingInterval(maximumSpeedometerSpeed);
-        if(maximumSpeedometerSpeed > DEFAULT_BOTTOM_SPEEDOMETER_SPEED && maximumSpeedometerSpeed < DEFAULT_TOP_SPEEDOMETER_SPEED){
-            mMaximumSpeedometerSpeed = ((maximumSpeedometerSpeed+revalidatedInterval-1)/revalidatedInterval)*revalidatedInterval;
-        }else{
-            throw new IllegalArgumentException("Maximum speedometer speed must be greater than "
-                    +DEFAULT_BOTTOM_SPEEDOMETER_SPEED+", and less than "+DEFAULT_TOP_SPEEDOMETER_SPEED+
-                    ", found: "+maximumSpeedometerSpeed+";");
+        mStyle.setMaximumSpeedometerSpeed(maximumSpeedometerSpeed);
+        mEngine.setMaximumSpeed(mStyle.getMaximumSpeedometerSpeed());
+        invalidateDialLayer();
+        invalidateArrowAndSectorsLayer();
+        wakeAnimator();
+    }
+
+    /**
+     * @return copy of colors, radiuses and maximum speed, e.g. for {@link GaugeFrameRenderer}
+     */
+    public GaugeStyle getGaugeStyle() {
+        return new GaugeStyle(mStyle);
+    }
+
+    public int getRenderMode() {
+        return mRenderMode;
+    }
+
+    /**
+     * @param renderMode one of {@link #RENDER_MODE_SOFTWARE}, {@link #RENDER_MODE_HARDWARE} or
+     *                   {@link #RENDER_MODE_AUTO}.
+     */
+    public void setRenderMode(int renderMode) {
+        if (renderMode == RENDER_MODE_SOFTWARE || renderMode == RENDER_MODE_HARDWARE || renderMode == RENDER_MODE_AUTO) {
+            mRenderMode = renderMode;
+        } else {
+            throw new IllegalArgumentException("Unknown render mode, found: " + renderMode);
+        }
+        applyRenderMode();
+    }
+
+    public boolean isFlatRendering() {
+        return isFlatRendering;
+    }
+
+    /**
+     * @param flatRendering if true, all layers are drawn by this view in one onDraw() instead
+     *                      of three child views, so there are no child measure, layout and draw
+     *                      passes. Layers are redrawn together then, dial layer is cached in
+     *                      bitmap anyway. False by default.
+     */
+    public void setFlatRendering(boolean flatRendering) {
+        if (isFlatRendering == flatRendering) {
+            return;
+        }
+        isFlatRendering = flatRendering;
+        if (isFlatRendering) {
+            removeAllViews();
+        } else {
+            addLayerViews();
         }
         invalidate();
     }
 
 
 
+    public long getArrowFrameCacheSize() {
+        return mArrowFrameCache != null ? mArrowFrameCache.getMaxSizeBytes() : 0;
+    }
+
+    /**
+     * @param maxSizeBytes memory budget of arrow and sectors frames cached by arrow angle
+     *                     (quantized to 0.25 degree), or 0 to disable cache (default). Cached
+     *                     frames make redraws at the same angle one drawBitmap(), it helps
+     *                     software rendering of slowly changing speed. Frames are dropped on
+     *                     memory pressure and when view is detached.
+     */
+    public void setArrowFrameCacheSize(long maxSizeBytes) {
+        if (maxSizeBytes < 0) {
+            throw new IllegalArgumentException("Arrow frame cache size must not be negative, found " + maxSizeBytes);
+        }
+        if (maxSizeBytes == 0) {
+            if (mArrowFrameCache != null) {
+                if (isWindowAttached) {
+                    getContext().getApplicationContext().unregisterComponentCallbacks(mArrowFrameCache);
+                }
+                mArrowFrameCache.clear();
+                mArrowFrameCache = null;
+            }
+        } else if (mArrowFrameCache != null) {
+            mArrowFrameCache.setMaxSizeBytes(maxSizeBytes);
+        } else {
+            mArrowFrameCache = new ArrowFrameCache(maxSizeBytes);
+            if (isWindowAttached) {
+                getContext().getApplicationContext().registerComponentCallbacks(mArrowFrameCache);
+            }
+        }
+    }
+
+
+
     /*********************************************************************************************
      * init(), onMeasure(), onLayout(), onDraw(), ... *
      ********************************************************************************************/
 
     private void setDefaults(){
-        mBackgroundColor = DEFAULT_BACKGROUND_COLOR;
-        mDigitsColor = DEFAULT_DIGITS_COLOR;
-        mSectorBeforeArrowColor = DEFAULT_SECTOR_BEFORE_ARROW_COLOR;
-        mSectorAfterArrowColor = DEFAULT_SECTOR_AFTER_ARROW_COLOR;
-        mArrowRadius = convertDpToPixels(DEFAULT_ARROW_RADIUS, getContext());
-        mOuterCircleColor = DEFAULT_OUTER_CIRCLE_COLOR;
-        mArrowColor = DEFAULT_ARROW_COLOR;
-        mInternalSectorRadius = convertDpToPixels(DEFAULT_INTERNAL_SECTOR_RADIUS, getContext());
-        mExternalSectorRadius = convertDpToPixels(DEFAULT_EXTERNAL_SECTOR_RADIUS, getContext());
-        mMaximumSpeedometerSpeed = DEFAULT_MAXIMUM_SPEEDOMETER_SPEED;
+        mStyle = new GaugeStyle(getContext());
+        mEngine.setMaximumSpeed(mStyle.getMaximumSpeedometerSpeed());
+        mRenderMode = DEFAULT_RENDER_MODE;
     }
 
     private void init(){
-        setLayerToSW(this);
+        applyRenderMode();
 
         mSpeedChangeListenerList = new ArrayList<>();
 
-        mSpeed = 0;
-        mNotchesCount = mMaximumSpeedometerSpeed/getRevalidatedSpeedNotchingInterval(mMaximumSpeedometerSpeed);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mFrameCallback = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    onAnimationFrame(frameTimeNanos);
+                }
+            };
+        }
+
+        mEngine.setSpeed(0);
 
-        mDialSpeedometerView = new DialSpeedometerView(getContext());
-        mDialSpeedometerView.init();
-        addView(mDialSpeedometerView);
+        mDialSpeedometerView = new LayerView(getContext(), LAYER_DIAL);
+        mOilCanAndLevelView = new LayerView(getContext(), LAYER_OIL_CAN_AND_LEVEL);
+        mArrowAndSectorsView = new LayerView(getContext(), LAYER_ARROW_AND_SECTORS);
+        if (!isFlatRendering) {
+            addLayerViews();
+        }
+    }
 
-        mOilCanAndLevelView = new OilCanAndLevelView(getContext());
-        mOilCanAndLevelView.init();
+    private void addLayerViews(){
+        addView(mDialSpeedometerView);
         addView(mOilCanAndLevelView);
-
-        mArrowAndSectorsView = new ArrowAndSectorsView(getContext());
-        mArrowAndSectorsView.init();
         addView(mArrowAndSectorsView);
-
     }
 
     @Override
@@ -360,422 +470,454 @@ public class SpeedometerView extends ViewGroup {
             topPosition = 0;
         }
 
-        mDialSpeedometerView.layout(leftPosition, topPosition, leftPosition+viewWidth, topPosition+viewHeight);
-        mOilCanAndLevelView.layout(leftPosition, topPosition, leftPosition+viewWidth, topPosition+viewHeight);
-        mArrowAndSectorsView.layout(leftPosition, topPosition, leftPosition+viewWidth, topPosition+viewHeight);
+        if (mGaugeWidth != viewWidth || mGaugeHeight != viewHeight) {
+            mGaugeWidth = viewWidth;
+            mGaugeHeight = viewHeight;
+            mDialLayerRenderer.setSize(viewWidth, viewHeight);
+            mOilCanAndLevelLayerRenderer.setSize(viewWidth, viewHeight);
+            mArrowAndSectorsLayerRenderer.setSize(viewWidth, viewHeight);
+            isDialLayerDirty = true;
+            if (mArrowFrameCache != null) {
+                mArrowFrameCache.clear();
+            }
+            updateOilCanBitmap();
+        }
+        mGaugeLeft = leftPosition;
+        mGaugeTop = topPosition;
+
+        if (!isFlatRendering) {
+            mDialSpeedometerView.layout(leftPosition, topPosition, leftPosition+viewWidth, topPosition+viewHeight);
+            mOilCanAndLevelView.layout(leftPosition, topPosition, leftPosition+viewWidth, topPosition+viewHeight);
+            mArrowAndSectorsView.layout(leftPosition, topPosition, leftPosition+viewWidth, topPosition+viewHeight);
+        }
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
 
-        canvas.drawColor(mBackgroundColor);
-    }
-
-
-
-    /*********************************************************************************************
-     * Views *
-     ********************************************************************************************/
+        canvas.drawColor(mStyle.getBackgroundColor());
 
-    private class DialSpeedometerView extends View {
-
-        private Paint mOuterCirclePaint;
-        private Paint mNotchesPaint;
-        private Path mNotchesPath;
-        private Matrix mNotchesMatrix;
-        private Paint mDigitsPaint;
-        private Rect mDigitsBoundRect;
-        private Path mDigitsPath;
-        private Matrix mDigitsMatrix;
-        private RectF mOuterCircleOval;
-
-        private int mWidth;
-        private int mHeight;
-        private int mCenterX;
-        private int mCenterY;
-
-        private int mStrokeWidth;
-        private int mRadius;
-        private int mNotchingLength;
-        private int mRevalidatedSpeedNotchingInterval;
-        private int mNotchingsCount;
-        private double mAnglePart;
-
-        public DialSpeedometerView(Context context) {
-            super(context);
+        if (isFlatRendering) {
+            int saveCount = canvas.save();
+            canvas.translate(mGaugeLeft, mGaugeTop);
+            drawLayer(canvas, LAYER_DIAL);
+            drawLayer(canvas, LAYER_OIL_CAN_AND_LEVEL);
+            drawLayer(canvas, LAYER_ARROW_AND_SECTORS);
+            canvas.restoreToCount(saveCount);
         }
+    }
 
-        public void init(){
-            mOuterCirclePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-            mNotchesPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-            mNotchesPath = new Path();
-            mNotchesMatrix = new Matrix();
-            mDigitsPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-            mDigitsBoundRect = new Rect();
-            mDigitsPath = new Path();
-            mDigitsMatrix = new Matrix();
-            mOuterCircleOval = new RectF();
-
-            mOuterCirclePaint.setStyle(Paint.Style.STROKE);
-            mNotchesPaint.setStyle(Paint.Style.FILL);
-            mDigitsPaint.setStyle(Paint.Style.FILL);
-            mDigitsPaint.setTypeface(Typeface.create(Typeface.DEFAULT, Typeface.BOLD));
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        isWindowAttached = true;
+        mWindowVisibility = getWindowVisibility();
+        updateFrameInterval();
+        updateSuspension();
+        if (mArrowFrameCache != null) {
+            getContext().getApplicationContext().registerComponentCallbacks(mArrowFrameCache);
         }
+        updateOilCanBitmap();
+    }
 
-        @Override
-        protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
-            mWidth = right - left;
-            mHeight = bottom - top;
-            mCenterX = mWidth / 2;
-            mCenterY = mWidth / 2;
-
-            mStrokeWidth = mWidth / STROKE_WIDTH_FROM_VIEW_WIDTH_DIVIDER;
-            mOuterCirclePaint.setStrokeWidth(mStrokeWidth);
-            mDigitsPaint.setTextSize(getWidth() * 1f / DIGITS_SIZE_FROM_VIEW_WIDTH_DIVIDER);
-
-            mRadius = mWidth/2 - OUTER_CIRCLE_MARGIN_TO_STROKE_WIDTH_MULTIPLIER * mStrokeWidth;
-            mNotchingLength = NOTCHING_LENGTH_TO_STROKE_WIDTH_MULTIPLIER * mStrokeWidth;
-
-            mRevalidatedSpeedNotchingInterval = getRevalidatedSpeedNotchingInterval(mMaximumSpeedometerSpeed);
-            mNotchingsCount = mMaximumSpeedometerSpeed/mRevalidatedSpeedNotchingInterval; //you need add 1 for angle calculation
-            mAnglePart = Math.PI/(mNotchingsCount+1);
-
-            super.onLayout(changed, left, top, right, bottom);
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        isWindowAttached = false;
+        updateSuspension();
+        if (mArrowFrameCache != null) {
+            getContext().getApplicationContext().unregisterComponentCallbacks(mArrowFrameCache);
+            mArrowFrameCache.clear();
         }
-
-        @Override
-        protected void onDraw(Canvas canvas){
-            super.onDraw(canvas);
-
-            mOuterCirclePaint.setColor(mOuterCircleColor);
-            mNotchesPaint.setColor(mOuterCircleColor);
-            mDigitsPaint.setColor(mDigitsColor);
-
-            mOuterCircleOval.set(mCenterX-mRadius, mCenterY - mRadius, mCenterX+mRadius, mCenterY+mRadius);
-            canvas.drawArc(mOuterCircleOval, 180, 180, false, mOuterCirclePaint);
-
-            double alpha;
-            int digits;
-            String digitsString;
-            float digitsWidth;
-            float digitsHeight;
-
-            mNotchesPath.reset();
-            mNotchesPath.addRect(
-                    mCenterX - mRadius,
-                    mCenterY - mStrokeWidth/2,
-                    mCenterX - mRadius + mNotchingLength,
-                    mCenterY + mStrokeWidth/2,
-                    Path.Direction.CW);
-            mNotchesMatrix.reset();
-            mNotchesMatrix.setRotate((float)radiansToDegrees(mAnglePart), mCenterX, mCenterY);
-
-            for (int i = 1; i <= mNotchingsCount; i++) {
-                alpha = mAnglePart * i;
-
-                mNotchesPath.transform(mNotchesMatrix);
-                canvas.drawPath(mNotchesPath, mNotchesPaint);
-
-                digits = mRevalidatedSpeedNotchingInterval * i;
-                digitsString = digits +"";
-                mDigitsPaint.getTextBounds(digitsString, 0, digitsString.length(), mDigitsBoundRect);
-                digitsWidth = mDigitsPaint.measureText(digitsString);
-                digitsHeight = mDigitsBoundRect.height();
-
-                // TODO: 11/04/17 why so complicated solution, why not just pretranslate and rotate after?
-                // check https://drive.google.com/file/d/0B7HaaehGeuRKMjlBMEZHWi1IMTA/view?usp=sharing
-
-                // 12/04/17 i don't understand how it is possible to make it simpler.
-                // Notches are made in one path calculation and then only rotation.
-                // Digits need more complicated calculations for correct position on view.
-                // We can calculate position with sin&cos and simply draw on that place in one step or
-                // if not to use sin&cos - need 2 rotations for correct angle on view, and again calculations
-                // of width and height of text(digits) for correct positioning on view.
-
-                int digitsPositionShift = mCenterX - mRadius + mNotchingLength + mStrokeWidth;
-                mDigitsPath.reset();
-                mDigitsPath.moveTo(digitsPositionShift, mCenterY);
-                mDigitsPath.lineTo(digitsPositionShift + digitsWidth, mCenterY);
-                mDigitsMatrix.reset();
-                mDigitsMatrix.setRotate((-1)*(float)radiansToDegrees(alpha), digitsPositionShift + digitsWidth/2, mCenterY);
-                mDigitsPath.transform(mDigitsMatrix);
-                mDigitsMatrix.reset();
-                mDigitsMatrix.setRotate((float)radiansToDegrees(alpha), mCenterX, mCenterY);
-                mDigitsPath.transform(mDigitsMatrix);
-                canvas.drawTextOnPath(digitsString, mDigitsPath, 0, digitsHeight/2, mDigitsPaint);
-            }
+        if (mOilCanBitmap != null) {
+            mOilCanAndLevelLayerRenderer.setOilCanBitmap(null);
+            GaugeResourceCache.releaseOilCanBitmap(mOilCanBitmap, false);
+            mOilCanBitmap = null;
+        }
+        if (mDialLayer != null) {
+            GaugeResourceCache.releaseDialLayer(mDialLayer);
+            mDialLayer = null;
+            isDialLayerDirty = true;
         }
     }
 
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateSuspension();
+    }
 
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        mWindowVisibility = visibility;
+        updateSuspension();
+    }
 
-    private class ArrowAndSectorsView extends View {
-
-        private Paint mArrowCenterPaint;
-        private Paint mArrowPaint;
-        private Matrix mArrowMatrix;
-        private Path mArrowPath;
-        private Paint mSectorBeforeArrowPaint;
-        private Paint mSectorAfterArrowPaint;
-        private RectF mSectorBeforeOval;
-        private RectF mSectorAfterOval;
-
-        private int mWidth;
-        private int mHeight;
-        private int mCenterX;
-        private int mCenterY;
-
-        private double mStartAngle;
-
-        public ArrowAndSectorsView(Context context) {
-            super(context);
+    /**
+     * Animation loop and oil can animators run only while gauge can be seen: it is attached,
+     * it and all its ancestors are visible and its window is visible. Off-screen gauge doesn't
+     * use CPU: target speed, samples and pedals are only stored, nothing is posted to UI thread.
+     * Loop is woken once when gauge is shown again. Its first frame applies the newest target
+     * speed, or samples at render time, and then the loop animates from the current state again.
+     * Pedals movement and oil can animations of suspended time aren't replayed, oil can layer is
+     * redrawn on resume and starts blinking again if energy level is still low.
+     */
+    private void updateSuspension(){
+        if (mStyle == null) {
+            // called from View constructor, before fields of this class are initialized
+            return;
         }
-
-        public void init(){
-            mArrowCenterPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-            mArrowPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-            mArrowMatrix = new Matrix();
-            mArrowPath = new Path();
-            mSectorBeforeArrowPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-            mSectorAfterArrowPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-            mSectorBeforeOval = new RectF();
-            mSectorAfterOval = new RectF();
-
-            mArrowCenterPaint.setStyle(Paint.Style.FILL);
-            mArrowPaint.setStyle(Paint.Style.FILL);
-            mSectorBeforeArrowPaint.setStyle(Paint.Style.STROKE);
-            mSectorAfterArrowPaint.setStyle(Paint.Style.STROKE);
+        boolean isSuspendedNow = !isWindowAttached || mWindowVisibility != View.VISIBLE || !isShown();
+        if (isSuspendedNow == isSuspended) {
+            return;
+        }
+        isSuspended = isSuspendedNow;
+        if (isSuspended) {
+            isAnimatorParked = true;
+            cancelNextFrame();
+            mMainHandler.removeCallbacks(mWakeAnimatorRunnable);
+            isWakeAnimatorPosted.set(false);
+            suspendOilCanAnimations();
+        } else {
+            // Child layer views replay their recorded display lists when gauge is shown again,
+            // oil can layer is redrawn to restart blinking and show current alpha.
+            invalidateOilCanAndLevelLayer();
+            wakeAnimator();
         }
+    }
 
-        @Override
-        protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
-            mWidth = right - left;
-            mHeight = bottom - top;
-            mCenterX = mWidth/2;
-            mCenterY = mWidth/2;
+    // Acquires oil can icon of current size, called when view is attached or resized.
+    private void updateOilCanBitmap(){
+        int width = mOilCanAndLevelLayerRenderer.getOilCanWidth();
+        int height = mOilCanAndLevelLayerRenderer.getOilCanHeight();
+        if (mOilCanBitmap != null && mOilCanBitmap.width == width && mOilCanBitmap.height == height) {
+            return;
+        }
+        if (mOilCanBitmap != null) {
+            GaugeResourceCache.releaseOilCanBitmap(mOilCanBitmap, true);
+            mOilCanBitmap = null;
+        }
+        if (isWindowAttached && width > 0 && height > 0) {
+            mOilCanBitmap = GaugeResourceCache.acquireOilCanBitmap(getResources(), width, height);
+        }
+        mOilCanAndLevelLayerRenderer.setOilCanBitmap(mOilCanBitmap != null ? mOilCanBitmap.bitmap : null);
+    }
 
-            float strokeWidth = mExternalSectorRadius - mInternalSectorRadius;
-            float radius = mExternalSectorRadius;
-            mSectorBeforeOval.set(mCenterX-radius+strokeWidth/2, mCenterY - radius+strokeWidth/2, mCenterX+radius-strokeWidth/2, mCenterY+radius-strokeWidth/2);
-            mSectorAfterOval.set(mCenterX-radius+strokeWidth/2, mCenterY - radius+strokeWidth/2, mCenterX+radius-strokeWidth/2, mCenterY+radius-strokeWidth/2);
+    private void applyRenderMode(){
+        mArrowAndSectorsLayerRenderer.setArrowSpriteEnabled(mRenderMode == RENDER_MODE_HARDWARE);
+        invalidateArrowAndSectorsLayer();
+        switch (mRenderMode) {
+            case RENDER_MODE_SOFTWARE:
+                setLayerToSW(this);
+                break;
+            case RENDER_MODE_HARDWARE:
+                setLayerToHW(this);
+                break;
+            default:
+                // drawTextOnPath() is supported by hardware renderer since API 16. On newer devices
+                // no layer is forced at all, so gauge is drawn directly into window's display list
+                // when window is hardware accelerated, and in software otherwise.
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                    setLayerType(View.LAYER_TYPE_NONE, null);
+                } else {
+                    setLayerToSW(this);
+                }
+                break;
+        }
+    }
 
-            super.onLayout(changed, left, top, right, bottom);
+    // Every layer is invalidated separately, so speed change doesn't redraw dial and oil can.
+    // invalidate() of this ViewGroup redraws only background, or all layers in flat rendering.
+    // Setters can be called from constructor (XML attributes) before child views are created.
+    private void invalidateLayer(View layerView){
+        if (isFlatRendering) {
+            invalidate();
+        } else if (layerView != null) {
+            layerView.invalidate();
         }
+    }
 
-        @Override
-        protected void onDraw(Canvas canvas) {
-            super.onDraw(canvas);
+    private void invalidateDialLayer(){
+        isDialLayerDirty = true;
+        invalidateLayer(mDialSpeedometerView);
+    }
 
-            mArrowCenterPaint.setColor(mArrowColor);
-            mArrowPaint.setColor(mArrowColor);
-            mSectorBeforeArrowPaint.setColor(mSectorBeforeArrowColor);
-            mSectorAfterArrowPaint.setColor(mSectorAfterArrowColor);
-            mSectorBeforeArrowPaint.setStrokeWidth(mExternalSectorRadius - mInternalSectorRadius);
-            mSectorAfterArrowPaint.setStrokeWidth(mExternalSectorRadius - mInternalSectorRadius);
+    private void invalidateArrowAndSectorsLayer(){
+        mArrowAndSectorsLayerRenderer.invalidateGeometry();
+        if (mArrowFrameCache != null) {
+            mArrowFrameCache.clear();
+        }
+        invalidateLayer(mArrowAndSectorsView);
+    }
 
-            mStartAngle = Math.PI * (mSpeed / mMaximumSpeedometerSpeed) * ((float) mNotchesCount /((float) mNotchesCount +1));
+    private void invalidateArrowAndSectorsSpeed(){
+        invalidateLayer(mArrowAndSectorsView);
+    }
 
-            canvas.drawArc(mSectorBeforeOval, 180, (float)radiansToDegrees(mStartAngle), false, mSectorBeforeArrowPaint);
-            canvas.drawArc(mSectorAfterOval, 180+(float)radiansToDegrees(mStartAngle), 180-(float)radiansToDegrees(mStartAngle), false, mSectorAfterArrowPaint);
-            canvas.drawCircle(mCenterX, mCenterY, mWidth / ARROW_CENTER_RADIUS_FROM_VIEW_WIDTH_DIVIDER, mArrowCenterPaint);
+    private void invalidateOilCanAndLevelLayer(){
+        invalidateLayer(mOilCanAndLevelView);
+    }
 
 
 
-            mArrowPath.reset();
-            mArrowPath.moveTo(mCenterX, mCenterY - mWidth/ARROW_WIDTH_FROM_VIEW_WIDTH_DIVIDER);
-            mArrowPath.lineTo(mCenterX-mArrowRadius, mCenterY - mWidth/(ARROW_WIDTH_FROM_VIEW_WIDTH_DIVIDER*2));
-            mArrowPath.lineTo(mCenterX-mArrowRadius, mCenterY + mWidth/(ARROW_WIDTH_FROM_VIEW_WIDTH_DIVIDER*2));
-            mArrowPath.lineTo(mCenterX, mCenterY + mWidth/ARROW_WIDTH_FROM_VIEW_WIDTH_DIVIDER);
-            mArrowPath.close();
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        SavedState savedState = new SavedState(super.onSaveInstanceState());
+        savedState.mGaugeState = getGaugeState();
+        return savedState;
+    }
 
-            mArrowMatrix.reset();
-            mArrowMatrix.setRotate((float)radiansToDegrees(mStartAngle), mCenterX, mCenterY);
-            mArrowPath.transform(mArrowMatrix);
-            canvas.drawPath(mArrowPath, mArrowPaint);
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
         }
+        SavedState savedState = (SavedState) state;
+        super.onRestoreInstanceState(savedState.getSuperState());
+        bind(savedState.mGaugeState);
     }
 
+    private static class SavedState extends BaseSavedState {
 
+        private GaugeState mGaugeState;
 
-    private class OilCanAndLevelView extends View {
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
 
-        private Paint mOilCanPaint;
-        private Bitmap mOilCanBitmap;
-        private Rect mOilCanRect;
-        private Paint mLevelPaint;
+        private SavedState(Parcel in) {
+            super(in);
+            mGaugeState = in.readParcelable(GaugeState.class.getClassLoader());
+        }
 
-        // RGBATxRGBA
-        float[] cmDataGreen = new float[]{
-                0, 0, 0, 0, 0,
-                0, 0, 0, 0, 255,
-                0, 0, 0, 0, 0,
-                0, 0, 0, 1, 0 };
-        float[] cmDataRed = new float[]{
-                0, 0, 0, 0, 255,
-                0, 0, 0, 0, 0,
-                0, 0, 0, 0, 0,
-                0, 0, 0, 1, 0 };
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeParcelable(mGaugeState, flags);
+        }
 
-        ColorFilter mColorFilter;
-        private float mPreviousEnergyLevelValue;
-        ColorFilter mColorGreenFilter;
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
+            }
 
-        private int mWidth;
-        private int mHeight;
-        private int mCenterX;
-        private int mCenterY;
-        private int mOilCanAndLevelViewWidth;
-        private int mOilCanAndLevelViewHeight;
-        private int mEnergyLevelXOffset;
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
 
-        private ValueAnimator mColorMatrixValueAnimatorGreenToRed;
-        private ValueAnimator mColorMatrixValueAnimatorRedToGreen;
-        private ValueAnimator mAlphaBlinkValueAnimator;
-        private boolean isAlphaBlinkRunning;
 
-        public OilCanAndLevelView(Context context) {
-            super(context);
-        }
 
-        public void init(){
+    /*********************************************************************************************
+     * Layers *
+     ********************************************************************************************/
 
-            mPreviousEnergyLevelValue = 100;
+    // Child view of one layer, used when flat rendering is off.
+    private class LayerView extends View {
 
-            mOilCanPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-            mOilCanBitmap = BitmapFactory.decodeResource(this.getResources(), R.drawable.ic_oil);
-            mOilCanRect = new Rect();
-            mLevelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        private final int mLayer;
 
-            mColorGreenFilter = new ColorMatrixColorFilter(new ColorMatrix(cmDataGreen));
+        public LayerView(Context context, int layer) {
+            super(context);
+            mLayer = layer;
+        }
 
-            mColorFilter = mColorGreenFilter;
+        @Override
+        protected void onDraw(Canvas canvas) {
+            super.onDraw(canvas);
+            drawLayer(canvas, mLayer);
+        }
+    }
 
-            mColorMatrixValueAnimatorGreenToRed = ValueAnimator.ofObject(new ColorMatrixEvaluator(), cmDataGreen, cmDataRed);
-            mColorMatrixValueAnimatorGreenToRed.setDuration(2000);
-            mColorMatrixValueAnimatorGreenToRed.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-                @Override
-                public void onAnimationUpdate(ValueAnimator animation) {
-                    float[] cmData = (float[]) animation.getAnimatedValue();
-                    mColorFilter = new ColorMatrixColorFilter(new ColorMatrix(cmData));
+    private void drawLayer(Canvas canvas, int layer){
+        if (mGaugeWidth <= 0 || mGaugeHeight <= 0) {
+            return;
+        }
+        long drawStartNanos = mMetrics != null ? System.nanoTime() : 0;
+        boolean isTraced = GaugeTrace.isEnabled;
+        if (isTraced) {
+            GaugeTrace.beginSection(layer == LAYER_DIAL ? GaugeTrace.SECTION_DRAW_DIAL
+                    : layer == LAYER_OIL_CAN_AND_LEVEL ? GaugeTrace.SECTION_DRAW_OIL_CAN_AND_LEVEL
+                    : GaugeTrace.SECTION_DRAW_ARROW_AND_SECTORS);
+        }
+        switch (layer) {
+            case LAYER_DIAL:
+                if (isDialLayerDirty || mDialLayer == null) {
+                    rebuildDialLayer();
                 }
-            });
-            mColorMatrixValueAnimatorRedToGreen = ValueAnimator.ofObject(new ColorMatrixEvaluator(), cmDataRed, cmDataGreen);
-            mColorMatrixValueAnimatorRedToGreen.setDuration(2000);
-            mColorMatrixValueAnimatorRedToGreen.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-                @Override
-                public void onAnimationUpdate(ValueAnimator animation) {
-                    float[] cmData = (float[]) animation.getAnimatedValue();
-                    mColorFilter = new ColorMatrixColorFilter(new ColorMatrix(cmData));
+                canvas.drawBitmap(mDialLayer.bitmap, 0, 0, null);
+                break;
+            case LAYER_OIL_CAN_AND_LEVEL:
+                float energyLevel = mEngine.getEnergyLevel();
+                updateOilCanAnimations(energyLevel);
+                mOilCanAndLevelLayerRenderer.draw(canvas, mStyle, mEngine.getSpeed(), energyLevel);
+                break;
+            default:
+                if (mArrowFrameCache != null) {
+                    mArrowFrameCache.draw(canvas, mArrowAndSectorsLayerRenderer, mStyle, mEngine.getSpeed());
+                } else {
+                    mArrowAndSectorsLayerRenderer.draw(canvas, mStyle, mEngine.getSpeed(), mEngine.getEnergyLevel());
                 }
-            });
+                break;
+        }
+        if (isTraced) {
+            GaugeTrace.endSection();
+        }
+        if (mMetrics != null) {
+            recordLayerDraw(layer, System.nanoTime() - drawStartNanos);
+        }
+    }
 
-            mAlphaBlinkValueAnimator = ValueAnimator.ofFloat(1, 0);
-            mAlphaBlinkValueAnimator.setDuration(500);
-            mAlphaBlinkValueAnimator.setRepeatCount(ValueAnimator.INFINITE);
-            mAlphaBlinkValueAnimator.setRepeatMode(ValueAnimator.REVERSE);
-            mAlphaBlinkValueAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-                @Override
-                public void onAnimationUpdate(ValueAnimator animation) {
-                    float value = (float) animation.getAnimatedValue();
-                    mOilCanPaint.setAlpha((int)(value*255));
-                    mLevelPaint.setAlpha((int)(value*255));
-                }
-            });
+    private void recordLayerDraw(int layer, long durationNanos){
+        switch (layer) {
+            case LAYER_DIAL:
+                mMetrics.getDialDrawHistogram().record(durationNanos);
+                break;
+            case LAYER_OIL_CAN_AND_LEVEL:
+                mMetrics.getOilCanAndLevelDrawHistogram().record(durationNanos);
+                break;
+            default:
+                mMetrics.getArrowAndSectorsDrawHistogram().record(durationNanos);
+                break;
+        }
+    }
 
-            mLevelPaint.setColor(0xff000000);
+    private void rebuildDialLayer(){
+        GaugeResourceCache.DialLayer dialLayer = GaugeResourceCache.acquireDialLayer(
+                mGaugeWidth, mGaugeHeight, mStyle.getMaximumSpeedometerSpeed(),
+                mStyle.getOuterCircleColor(), mStyle.getDigitsColor());
+        if (mDialLayer != null) {
+            GaugeResourceCache.releaseDialLayer(mDialLayer);
         }
+        mDialLayer = dialLayer;
 
-        @Override
-        protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
-            mWidth = right - left;
-            mHeight = bottom - top;
-            mCenterX = mWidth/2;
-            mCenterY = (int) (OIL_AND_LEVEL_VERTICAL_POSITION_TO_VIEW_HEIGHT_MULTIPLIER * mCenterX);
+        if (!mDialLayer.isDrawn) {
+            mDialCanvas.setBitmap(mDialLayer.bitmap);
+            mDialLayerRenderer.draw(mDialCanvas, mStyle, 0, 0);
+            mDialCanvas.setBitmap(null);
+            mDialLayer.isDrawn = true;
+        }
+        isDialLayerDirty = false;
+    }
 
-            mOilCanAndLevelViewWidth = (int) (mWidth * OIL_AND_LEVEL_WIDTH_FROM_VIEW_WIDTH_MULTIPLIER);
-            mOilCanAndLevelViewHeight = mOilCanAndLevelViewWidth / 2;
+    // Oil can turns red when can becomes empty and blinks on low energy level.
+    private void updateOilCanAnimations(float energyLevel){
+        if (GaugeTrace.isEnabled) {
+            GaugeTrace.beginSection(GaugeTrace.SECTION_OIL_CAN_ANIMATION);
+            updateOilCanAnimators(energyLevel);
+            GaugeTrace.endSection();
+        } else {
+            updateOilCanAnimators(energyLevel);
+        }
+    }
 
-            mOilCanRect.set(
-                    mCenterX - mOilCanAndLevelViewWidth / 2,
-                    mCenterY - mOilCanAndLevelViewHeight / 3,
-                    mCenterX - mOilCanAndLevelViewWidth / 2 + mOilCanAndLevelViewHeight * 2 / 3,
-                    mCenterY + mOilCanAndLevelViewHeight / 3);
+    private void updateOilCanAnimators(float energyLevel){
+        int changes = mOilCanAnimationState.update(energyLevel,
+                mAppliedQualityLevel < AdaptiveQualityController.LEVEL_NO_BLINK);
+        if (changes == 0) {
+            return;
+        }
+        ensureOilCanAnimators();
+        if ((changes & OilCanAnimationState.START_RED_TO_GREEN) != 0) {
+            mColorMatrixValueAnimatorRedToGreen.start();
+        }
+        if ((changes & OilCanAnimationState.START_GREEN_TO_RED) != 0) {
+            mColorMatrixValueAnimatorGreenToRed.start();
+        }
+        if ((changes & OilCanAnimationState.START_BLINK) != 0) {
+            mAlphaBlinkValueAnimator.start();
+        } else if ((changes & OilCanAnimationState.STOP_BLINK) != 0) {
+            mAlphaBlinkValueAnimator.cancel();
+            mOilCanAndLevelLayerRenderer.setAlpha(255);
+        }
+    }
 
-            super.onLayout(changed, left, top, right, bottom);
+    // Animators are created on first use, most of the time energy level isn't low
+    // and gauge constructor stays cheap.
+    private void ensureOilCanAnimators(){
+        if (mAlphaBlinkValueAnimator != null) {
+            return;
         }
+        mColorMatrixValueAnimatorGreenToRed = ValueAnimator.ofFloat(0, 1);
+        mColorMatrixValueAnimatorGreenToRed.setDuration(OIL_CAN_COLOR_TRANSITION_DURATION_MS);
+        mColorMatrixValueAnimatorGreenToRed.addUpdateListener(mOilCanAnimatorUpdateListener);
+        mColorMatrixValueAnimatorRedToGreen = ValueAnimator.ofFloat(0, 1);
+        mColorMatrixValueAnimatorRedToGreen.setDuration(OIL_CAN_COLOR_TRANSITION_DURATION_MS);
+        mColorMatrixValueAnimatorRedToGreen.addUpdateListener(mOilCanAnimatorUpdateListener);
+
+        // fraction goes 0 -> 1 -> 0, alpha 255 -> 0 -> 255
+        mAlphaBlinkValueAnimator = ValueAnimator.ofFloat(0, 1);
+        mAlphaBlinkValueAnimator.setDuration(500);
+        mAlphaBlinkValueAnimator.setRepeatCount(ValueAnimator.INFINITE);
+        mAlphaBlinkValueAnimator.setRepeatMode(ValueAnimator.REVERSE);
+        mAlphaBlinkValueAnimator.addUpdateListener(mOilCanAnimatorUpdateListener);
+    }
 
+    // One listener for all oil can animators. Animated fraction is used instead of animated
+    // value, it is primitive and not boxed.
+    private final ValueAnimator.AnimatorUpdateListener mOilCanAnimatorUpdateListener = new ValueAnimator.AnimatorUpdateListener() {
         @Override
-        protected void onDraw(Canvas canvas) {
-            super.onDraw(canvas);
-
-            if (mPreviousEnergyLevelValue < ENERGY_LEVEL_CAN_EMPTY && mEnergyLevel >= ENERGY_LEVEL_CAN_EMPTY) {
-                mColorMatrixValueAnimatorRedToGreen.start();
-            }
-            if (mPreviousEnergyLevelValue > ENERGY_LEVEL_CAN_EMPTY && mEnergyLevel <= ENERGY_LEVEL_CAN_EMPTY) {
-                mColorMatrixValueAnimatorGreenToRed.start();
+        public void onAnimationUpdate(ValueAnimator animation) {
+            boolean isTraced = GaugeTrace.isEnabled;
+            if (isTraced) {
+                GaugeTrace.beginSection(GaugeTrace.SECTION_OIL_CAN_ANIMATION);
             }
-            mPreviousEnergyLevelValue = mEnergyLevel;
-
-            mOilCanPaint.setColorFilter(mColorFilter);
-            mLevelPaint.setColorFilter(mColorFilter);
-
-            if (mEnergyLevel < ENERGY_LEVEL_BLINK) {
-                if(!isAlphaBlinkRunning){
-                    isAlphaBlinkRunning = true;
-                    mAlphaBlinkValueAnimator.start();
-                }
+            int step = Math.round(animation.getAnimatedFraction() * OilCanAndLevelLayerRenderer.OIL_CAN_COLOR_FILTER_STEPS);
+            if (animation == mColorMatrixValueAnimatorGreenToRed) {
+                setOilCanColorFilterStep(step);
+            } else if (animation == mColorMatrixValueAnimatorRedToGreen) {
+                setOilCanColorFilterStep(OilCanAndLevelLayerRenderer.OIL_CAN_COLOR_FILTER_STEPS - step);
             } else {
-                isAlphaBlinkRunning = false;
-                mAlphaBlinkValueAnimator.cancel();
-                mOilCanPaint.setAlpha(255);
-                mLevelPaint.setAlpha(255);
+                mOilCanAndLevelLayerRenderer.setAlpha(OilCanAnimationState.getBlinkAlpha(animation.getAnimatedFraction()));
+                invalidateOilCanAndLevelLayer();
+            }
+            if (isTraced) {
+                GaugeTrace.endSection();
             }
-
-            canvas.drawBitmap(mOilCanBitmap, null, mOilCanRect, mOilCanPaint);
-
-            mLevelPaint.setStrokeWidth(mWidth / STROKE_WIDTH_FROM_VIEW_WIDTH_DIVIDER);
-
-            mEnergyLevelXOffset = mOilCanAndLevelViewWidth / 2 - mOilCanAndLevelViewHeight * 15 / 24;
-            canvas.drawLine(
-                    mCenterX - mEnergyLevelXOffset,
-                    mCenterY,
-                    mCenterX - mEnergyLevelXOffset + mEnergyLevel * (mEnergyLevelXOffset+mOilCanAndLevelViewWidth / 2) / 100,
-                    mCenterY,
-                    mLevelPaint);
         }
+    };
 
+    // Color transitions jump to their end, blinking is restarted by the draw after resume.
+    private void suspendOilCanAnimations(){
+        if (mAlphaBlinkValueAnimator == null) {
+            return;
+        }
+        if (mColorMatrixValueAnimatorGreenToRed.isRunning()) {
+            mColorMatrixValueAnimatorGreenToRed.end();
+        }
+        if (mColorMatrixValueAnimatorRedToGreen.isRunning()) {
+            mColorMatrixValueAnimatorRedToGreen.end();
+        }
+        if (mOilCanAnimationState.stopBlink()) {
+            mAlphaBlinkValueAnimator.cancel();
+            mOilCanAndLevelLayerRenderer.setAlpha(255);
+            invalidateOilCanAndLevelLayer();
+        }
+    }
 
+    private void setOilCanColorFilterStep(int step){
+        if (mOilCanAndLevelLayerRenderer.setColorFilterStep(step)) {
+            invalidateOilCanAndLevelLayer();
+        }
+    }
 
-        private class ColorMatrixEvaluator implements TypeEvaluator {
-            @Override
-            public Object evaluate(float fraction, Object startValue, Object endValue) {
-                float[] cmDataStart = (float[]) startValue;
-                float[] cmDataEnd = (float[]) endValue;
-                return new float[]{
-                        cmDataStart[0] + fraction * (cmDataEnd[0] - cmDataStart[0]),
-                        cmDataStart[1] + fraction * (cmDataEnd[1] - cmDataStart[1]),
-                        cmDataStart[2] + fraction * (cmDataEnd[2] - cmDataStart[2]),
-                        cmDataStart[3] + fraction * (cmDataEnd[3] - cmDataStart[3]),
-                        cmDataStart[4] + fraction * (cmDataEnd[4] - cmDataStart[4]),
-                        cmDataStart[5] + fraction * (cmDataEnd[5] - cmDataStart[5]),
-                        cmDataStart[6] + fraction * (cmDataEnd[6] - cmDataStart[6]),
-                        cmDataStart[7] + fraction * (cmDataEnd[7] - cmDataStart[7]),
-                        cmDataStart[8] + fraction * (cmDataEnd[8] - cmDataStart[8]),
-                        cmDataStart[9] + fraction * (cmDataEnd[9] - cmDataStart[9]),
-                        cmDataStart[10] + fraction * (cmDataEnd[10] - cmDataStart[10]),
-                        cmDataStart[11] + fraction * (cmDataEnd[11] - cmDataStart[11]),
-                        cmDataStart[12] + fraction * (cmDataEnd[12] - cmDataStart[12]),
-                        cmDataStart[13] + fraction * (cmDataEnd[13] - cmDataStart[13]),
-                        cmDataStart[14] + fraction * (cmDataEnd[14] - cmDataStart[14]),
-                        cmDataStart[15] + fraction * (cmDataEnd[15] - cmDataStart[15]),
-                        cmDataStart[16] + fraction * (cmDataEnd[16] - cmDataStart[16]),
-                        cmDataStart[17] + fraction * (cmDataEnd[17] - cmDataStart[17]),
-                        cmDataStart[18] + fraction * (cmDataEnd[18] - cmDataStart[18]),
-                        cmDataStart[19] + fraction * (cmDataEnd[19] - cmDataStart[19])
-                };
-            }
+    // Called after state is rebound, new energy level is shown without transition animations.
+    private void resetEnergyLevelState(){
+        float energyLevel = mEngine.getEnergyLevel();
+        mOilCanAnimationState.reset(energyLevel);
+        if (mAlphaBlinkValueAnimator != null) {
+            mColorMatrixValueAnimatorGreenToRed.cancel();
+            mColorMatrixValueAnimatorRedToGreen.cancel();
         }
+        setOilCanColorFilterStep(energyLevel <= OilCanAndLevelLayerRenderer.ENERGY_LEVEL_CAN_EMPTY
+                ? OilCanAndLevelLayerRenderer.OIL_CAN_COLOR_FILTER_STEPS : 0);
+        invalidateOilCanAndLevelLayer();
     }
 
 
@@ -785,38 +927,11 @@ public class SpeedometerView extends ViewGroup {
      ********************************************************************************************/
 
     private void setLayerToSW(View v) {
-        setLayerType(View.LAYER_TYPE_SOFTWARE, null);
+        v.setLayerType(View.LAYER_TYPE_SOFTWARE, null);
     }
 
     private void setLayerToHW(View v) {
-        setLayerType(View.LAYER_TYPE_HARDWARE, null);
-    }
-
-    // Numbers bigger than 2000 no have sense, better idea to add x10 x100 x1000 multiplier mark.
-    // 03/04/17 you can set maximum speed restriction and no need to calculate these values.
-    // Added 2000 top limit. Can be easy changed later.
-    private int getRevalidatedSpeedNotchingInterval(int maximumSpeed){
-        int revalidatedSpeedNotchingInterval;
-        if (maximumSpeed <= 160) {
-            revalidatedSpeedNotchingInterval = DEFAULT_SPEED_NOTCHING_INTERVAL;
-        } else if (maximumSpeed <= 300) {
-            revalidatedSpeedNotchingInterval = DEFAULT_SPEED_NOTCHING_INTERVAL * 2;
-        } else if (maximumSpeed <= 600) {
-            revalidatedSpeedNotchingInterval = DEFAULT_SPEED_NOTCHING_INTERVAL * 4;
-        } else if (maximumSpeed <= 1200) {
-            revalidatedSpeedNotchingInterval = DEFAULT_SPEED_NOTCHING_INTERVAL * 10;
-        } else {
-            revalidatedSpeedNotchingInterval = DEFAULT_SPEED_NOTCHING_INTERVAL * 20;
-        }
-        return revalidatedSpeedNotchingInterval;
-    }
-
-    private double radiansToDegrees(double radians){
-        return radians*(180/Math.PI);
-    }
-
-    private double degreesToRadians(double degrees){
-        return degrees*(Math.PI/180);
+        v.setLayerType(View.LAYER_TYPE_HARDWARE, null);
     }
 
     private int convertDpToPixels(float dp, Context context) {
@@ -829,42 +944,196 @@ public class SpeedometerView extends ViewGroup {
      * Animator *
      ********************************************************************************************/
 
+    // Used only on devices without Choreographer, see scheduleNextFrame().
     private Runnable animator = new Runnable() {
         @Override
         public void run() {
+            onAnimationFrame(System.nanoTime());
+        }
+    };
 
-            if (isTrottlePedalPressed && mSpeed < mMaximumSpeedometerSpeed) {
-                mSpeed+=mArrowAccelerationSpeed;
-                mEnergyLevel-=mEnergyLevelChangeSpeed;
-            }
-            if (isBrakePedalPressed && mSpeed > 0) {
-                mSpeed-=2*mArrowAccelerationSpeed;
-            }
-            if (!isBrakePedalPressed && !isTrottlePedalPressed && mSpeed > 0) {
-                mSpeed-=mArrowAttenuationSpeed;
-            }
-            if(mSpeed > mMaximumSpeedometerSpeed){
-                mSpeed = mMaximumSpeedometerSpeed;
-            }
-            if(mSpeed<0){
-                mSpeed = 0;
-            }
-            if(mEnergyLevel<0){
-                mEnergyLevel = 0;
+    private void scheduleNextFrame(){
+        // Half tick rate skips a frame without waking UI thread for it. Delay is rounded up, so
+        // callback comes on the second vsync even if this one was handled right on time.
+        long delayMs = 0;
+        if (mAppliedQualityLevel >= AdaptiveQualityController.LEVEL_HALF_TICK_RATE
+                && mTicker.getLastFrameTimeNanos() != 0) {
+            delayMs = (mFrameIntervalNanos + 999999) / 1000000;
+        }
+        if (mGaugeHost != null) {
+            mGaugeHost.requestFrame(this, delayMs);
+        } else if (mFrameCallback != null) {
+            if (delayMs > 0) {
+                Choreographer.getInstance().postFrameCallbackDelayed(mFrameCallback, delayMs);
+            } else {
+                Choreographer.getInstance().postFrameCallback(mFrameCallback);
             }
+        } else {
+            postDelayed(animator, FALLBACK_FRAME_DELAY_MS + delayMs);
+        }
+    }
+
+    private void cancelNextFrame(){
+        if (mGaugeHost != null) {
+            mGaugeHost.cancelFrame(this);
+        } else if (mFrameCallback != null) {
+            Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+        } else {
+            removeCallbacks(animator);
+        }
+    }
+
+    private Runnable mWakeAnimatorRunnable = new Runnable() {
+        @Override
+        public void run() {
+            isWakeAnimatorPosted.set(false);
+            wakeAnimator();
+        }
+    };
 
-            for (SpeedChangeListener speedChangeListener :
-                    mSpeedChangeListenerList) {
-                speedChangeListener.onSpeedChanged((int)mSpeed);
+    /**
+     * Resumes parked animation loop. Safe to call at any time from any thread, does nothing
+     * if loop is already running, view is switched off or suspended. From other threads it posts to UI
+     * thread only when loop is parked, gauge isn't suspended and no wake up is posted yet.
+     */
+    private void wakeAnimator(){
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            // suspended gauge is woken by updateSuspension() when it is shown
+            if (isAnimatorParked && !isSuspended && isWakeAnimatorPosted.compareAndSet(false, true)) {
+                mMainHandler.post(mWakeAnimatorRunnable);
             }
+            return;
+        }
+        if (isSwitchedOn && isAnimatorParked && !isSuspended) {
+            isAnimatorParked = false;
+            mTicker.resetFrameTime();
+            scheduleNextFrame();
+        }
+    }
+
+    private void onAnimationFrame(long frameTimeNanos){
+        if (!isSwitchedOn || isSuspended) {
+            return;
+        }
+        boolean isHalfTickRate = mAppliedQualityLevel >= AdaptiveQualityController.LEVEL_HALF_TICK_RATE;
+        long previousFrameTimeNanos = mTicker.getLastFrameTimeNanos();
+        // Frame is requested one interval later at half tick rate, see scheduleNextFrame(), but
+        // shared host still comes on every frame if other gauges requested it.
+        if (isHalfTickRate && previousFrameTimeNanos != 0
+                && frameTimeNanos - previousFrameTimeNanos < mFrameIntervalNanos * 3 / 2) {
+            scheduleNextFrame();
+            return;
+        }
+        long expectedFrameDeltaNanos = isHalfTickRate ? 2 * mFrameIntervalNanos : mFrameIntervalNanos;
+        long tickStartNanos = mMetrics != null ? System.nanoTime() : 0;
+        boolean isTraced = GaugeTrace.isEnabled;
+        if (isTraced) {
+            GaugeTrace.beginSection(GaugeTrace.SECTION_TICK);
+        }
+
+        if (mQualityController != null && previousFrameTimeNanos != 0
+                && mQualityController.onFrame(frameTimeNanos - previousFrameTimeNanos, expectedFrameDeltaNanos)) {
+            applyQualityLevel();
+        }
 
-            if(isSwitchedOn){
-                postDelayed(this, 30);
+        float previousSpeed = mEngine.getSpeed();
+        float previousEnergyLevel = mEngine.getEnergyLevel();
+
+        if (mTicker.tick(frameTimeNanos)) {
+            // listeners and views already got final values on this frame
+            isAnimatorParked = true;
+            // Target speed or samples could be set from other thread while it saw loop still
+            // running. Either that thread sees parked loop and wakes it, or it is noticed here.
+            if (mTicker.hasPendingInput()) {
+                isAnimatorParked = false;
+                scheduleNextFrame();
             }
+        } else {
+            scheduleNextFrame();
+        }
 
-            invalidate();
+        if (mEngine.getSpeed() != previousSpeed) {
+            invalidateArrowAndSectorsSpeed();
+        }
+        if (mEngine.getEnergyLevel() != previousEnergyLevel) {
+            invalidateOilCanAndLevelLayer();
         }
-    };
+
+        if (isTraced) {
+            traceCounters(previousSpeed, previousEnergyLevel);
+            GaugeTrace.endSection();
+        }
+        if (mMetrics != null) {
+            mMetrics.recordTick(frameTimeNanos, previousFrameTimeNanos, expectedFrameDeltaNanos,
+                    System.nanoTime() - tickStartNanos);
+        }
+    }
+
+
+
+    private void traceCounters(float previousSpeed, float previousEnergyLevel){
+        if (mSpeedCounterName == null) {
+            String gaugeName = "SpeedometerView@" + Integer.toHexString(System.identityHashCode(this));
+            mSpeedCounterName = gaugeName + " speed";
+            mEnergyLevelCounterName = gaugeName + " energyLevel";
+        } else if ((int) mEngine.getSpeed() == (int) previousSpeed
+                && (int) mEngine.getEnergyLevel() == (int) previousEnergyLevel) {
+            return;
+        }
+        GaugeTrace.setCounter(mSpeedCounterName, (int) mEngine.getSpeed());
+        GaugeTrace.setCounter(mEnergyLevelCounterName, (int) mEngine.getEnergyLevel());
+    }
+
+
+
+    /*********************************************************************************************
+     * Speed change listeners *
+     ********************************************************************************************/
+
+    /**
+     * @param notifiedOnlyOnChange if true, listeners are not notified when integer speed value
+     *                             is the same as previously delivered. False by default.
+     */
+    public void setSpeedChangeNotifiedOnlyOnChange(boolean notifiedOnlyOnChange){
+        mSpeedChangeDispatcher.setNotifiedOnlyOnChange(notifiedOnlyOnChange);
+    }
+
+    /**
+     * @param minimumDelta listeners are notified only when speed differs from previously
+     *                     delivered value at least by this amount. 0 by default.
+     */
+    public void setSpeedChangeMinimumDelta(int minimumDelta){
+        if (minimumDelta >= 0) {
+            mSpeedChangeDispatcher.setMinimumDelta(minimumDelta);
+        } else {
+            throw new IllegalArgumentException("Minimum delta must not be negative, found " + minimumDelta);
+        }
+    }
+
+    /**
+     * @param notificationsPerSecond maximum rate of listener notifications,
+     *                               0 means one notification per animation frame (default).
+     */
+    public void setSpeedChangeMaximumRate(float notificationsPerSecond){
+        if (notificationsPerSecond > 0) {
+            mSpeedChangeDispatcher.setMinimumIntervalNanos((long) (1e9 / notificationsPerSecond));
+        } else if (notificationsPerSecond == 0) {
+            mSpeedChangeDispatcher.setMinimumIntervalNanos(0);
+        } else {
+            throw new IllegalArgumentException("Maximum rate must not be negative, found " + notificationsPerSecond);
+        }
+    }
+
+    /**
+     * @param executor executor listeners are notified on, or null to notify them on UI thread
+     *                 during animation frame (default). Notifications are coalesced, listeners
+     *                 get only the newest speed if executor falls behind. Exception of
+     *                 rejected notification is thrown from animation frame, the next frame
+     *                 hands the newest speed to executor again.
+     */
+    public void setSpeedChangeExecutor(Executor executor){
+        mSpeedChangeDispatcher.setExecutor(executor);
+    }
 
 
 
@@ -872,53 +1141,359 @@ public class SpeedometerView extends ViewGroup {
      * other public methods *
      ********************************************************************************************/
 
+    /**
+     * @param accelerationSpeed speed units per second gained while trottle pedal is pressed,
+     *                          brake pedal decreases speed twice as fast.
+     */
     public void setArrowAccelerationSpeed(float accelerationSpeed){
-        mArrowAccelerationSpeed = accelerationSpeed;
+        mEngine.setAccelerationSpeed(accelerationSpeed);
     }
 
+    /**
+     * @param attenuationSpeed speed units per second lost while no pedal is pressed.
+     */
     public void setArrowAttenuationSpeed(float attenuationSpeed){
-        mArrowAttenuationSpeed = attenuationSpeed;
+        mEngine.setAttenuationSpeed(attenuationSpeed);
+    }
+
+    public float getSpeed(){
+        return mEngine.getSpeed();
     }
 
     public void setEnergyLevel(float energyLevel){
-        mEnergyLevel = energyLevel;
+        mEngine.setEnergyLevel(energyLevel);
+        invalidateOilCanAndLevelLayer();
+        wakeAnimator();
     }
 
     public float getEnergyLevel(){
-        return mEnergyLevel;
+        return mEngine.getEnergyLevel();
     }
 
+    /**
+     * @param energyLevelChangeSpeedPerSecond energy level units per second consumed while
+     *                                        trottle pedal is pressed.
+     */
     public void setEnergyLevelChangeSpeed(float energyLevelChangeSpeedPerSecond){
-        mEnergyLevelChangeSpeed = energyLevelChangeSpeedPerSecond;
+        mEngine.setEnergyLevelChangeSpeed(energyLevelChangeSpeedPerSecond);
+    }
+
+    /**
+     * Moves arrow to speed from external source (sensor, GPS, CAN reader, ...), pedals are
+     * ignored until {@link #releaseTargetSpeed()}. Safe to call from any thread at high rate:
+     * it doesn't lock or post per call, the next animation frame takes the newest value and
+     * older ones are dropped.
+     */
+    public void setTargetSpeed(float speed){
+        mEngine.setTargetSpeed(speed);
+        mTicker.onExternalInput();
+        wakeAnimator();
+    }
+
+    /**
+     * Returns arrow control to pedals, drops submitted samples and stops trace playback.
+     * Safe to call from any thread.
+     */
+    public void releaseTargetSpeed(){
+        // order matters, see GaugeTicker.applySpeedSamples()
+        mSampleBuffer.clear();
+        mEngine.releaseTargetSpeed();
+        wakeAnimator();
+    }
+
+    /**
+     * Submits batch of timestamped samples, e.g. from OBD-II or GPS polling. Arrow and energy
+     * level follow them with latency window delay, interpolated at display frame rate, so bursty
+     * or jittery samples result in smooth arrow motion. Pedals are ignored until
+     * {@link #releaseTargetSpeed()}. Safe to call from any thread, nothing is allocated.
+     *
+     * @param timestampsNanos sample times in {@link System#nanoTime()} time base, the one
+     *                        Choreographer frame times use
+     * @param speeds          speed values
+     * @param energyLevels    energy level values, or null if energy level isn't sampled
+     * @param offset          index of first sample in arrays
+     * @param count           number of samples
+     */
+    public void submitSpeedSamples(long[] timestampsNanos, float[] speeds, float[] energyLevels, int offset, int count){
+        if (mSampleBuffer.submit(timestampsNanos, speeds, energyLevels, offset, count) > 0) {
+            mTicker.onExternalInput();
+            wakeAnimator();
+        }
+    }
+
+    /**
+     * @return snapshot of current speed, energy level, maximum speed and colors
+     */
+    public GaugeState getGaugeState(){
+        GaugeState gaugeState = new GaugeState();
+        gaugeState.setSpeed(mEngine.getSpeed());
+        gaugeState.setEnergyLevel(mEngine.getEnergyLevel());
+        gaugeState.setMaximumSpeedometerSpeed(mStyle.getMaximumSpeedometerSpeed());
+        gaugeState.setBackgroundColor(mStyle.getBackgroundColor());
+        gaugeState.setDigitsColor(mStyle.getDigitsColor());
+        gaugeState.setSectorBeforeArrowColor(mStyle.getSectorBeforeArrowColor());
+        gaugeState.setSectorAfterArrowColor(mStyle.getSectorAfterArrowColor());
+        gaugeState.setOuterCircleColor(mStyle.getOuterCircleColor());
+        gaugeState.setArrowColor(mStyle.getArrowColor());
+        return gaugeState;
+    }
+
+    /**
+     * Shows other state in this gauge, e.g. when it is reused by RecyclerView. Child views,
+     * bitmaps and animators are kept, only changed attributes are applied and energy level
+     * is shown without transition animations.
+     *
+     * @throws IllegalArgumentException if maximum speed of state is out of range, see
+     *                                  {@link #setMaximumSpeedometerSpeed(int)}
+     */
+    public void bind(GaugeState gaugeState){
+        if (gaugeState.getMaximumSpeedometerSpeed() != mStyle.getMaximumSpeedometerSpeed()) {
+            setMaximumSpeedometerSpeed(gaugeState.getMaximumSpeedometerSpeed());
+        }
+        if (gaugeState.getBackgroundColor() != mStyle.getBackgroundColor()) {
+            setBackgroundColor(gaugeState.getBackgroundColor());
+        }
+        if (gaugeState.getDigitsColor() != mStyle.getDigitsColor()) {
+            setDigitsColor(gaugeState.getDigitsColor());
+        }
+        if (gaugeState.getSectorBeforeArrowColor() != mStyle.getSectorBeforeArrowColor()) {
+            setSectorBeforeArrowColor(gaugeState.getSectorBeforeArrowColor());
+        }
+        if (gaugeState.getSectorAfterArrowColor() != mStyle.getSectorAfterArrowColor()) {
+            setSectorAfterArrowColor(gaugeState.getSectorAfterArrowColor());
+        }
+        if (gaugeState.getOuterCircleColor() != mStyle.getOuterCircleColor()) {
+            setOuterCircleColor(gaugeState.getOuterCircleColor());
+        }
+        if (gaugeState.getArrowColor() != mStyle.getArrowColor()) {
+            setArrowColor(gaugeState.getArrowColor());
+        }
+
+        mEngine.setSpeed(gaugeState.getSpeed());
+        mEngine.setEnergyLevel(gaugeState.getEnergyLevel());
+        resetEnergyLevelState();
+        invalidateArrowAndSectorsSpeed();
+        wakeAnimator();
+    }
+
+    /**
+     * Detaches gauge from previously bound data: releases pedals, drops external speed sources,
+     * stops recording and playback, removes speed change listeners and restores their default
+     * dispatch options.
+     */
+    public void unbind(){
+        mEngine.releaseTrottlePedal();
+        mEngine.releaseBrakePedal();
+        releaseTargetSpeed();
+        mTicker.setGaugeRecorder(null);
+        mTicker.setGaugePlayer(null);
+        synchronized (mSpeedChangeListenerList) {
+            mSpeedChangeListenerList.clear();
+            updateSpeedChangeListeners();
+        }
+        mSpeedChangeDispatcher.reset();
+        mSpeedChangeDispatcher.resetOptions();
+    }
+
+    /**
+     * Enables android.os.Trace sections around animation tick, listeners dispatch, layers drawing
+     * and oil can animations, and speed and energy level counters of every gauge. Sections are
+     * shown in Systrace/Perfetto when app is traced. Disabled by default, then tracing costs
+     * one field read per phase. Needs API 18, ignored on older devices. Counters are written
+     * only on API 18 - 27, hidden API they use is blocked on newer versions.
+     */
+    public static void setTraceEnabled(boolean traceEnabled){
+        GaugeTrace.setEnabled(traceEnabled);
+    }
+
+    public static boolean isTraceEnabled(){
+        return GaugeTrace.isEnabled;
+    }
+
+    /**
+     * Enables collecting of frame time metrics, see {@link GaugeMetrics}. Disabled by default,
+     * then nothing is measured. Metrics are reset when enabled again.
+     */
+    public void setMetricsEnabled(boolean metricsEnabled){
+        if (!metricsEnabled) {
+            mMetrics = null;
+            mSpeedChangeDispatcher.setMetrics(null);
+            return;
+        }
+        if (mMetrics == null) {
+            mMetrics = new GaugeMetrics();
+            mMetrics.setFrameIntervalNanos(mFrameIntervalNanos);
+            mSpeedChangeDispatcher.setMetrics(mMetrics);
+        }
+    }
+
+    public boolean isMetricsEnabled(){
+        return mMetrics != null;
+    }
+
+    /**
+     * @return metrics of this gauge, or null if they are disabled. Must be read on UI thread.
+     */
+    public GaugeMetrics getMetrics(){
+        return mMetrics;
+    }
+
+    private void updateFrameInterval(){
+        if (mFrameCallback != null || mGaugeHost != null) {
+            WindowManager windowManager = (WindowManager) getContext().getSystemService(Context.WINDOW_SERVICE);
+            float refreshRate = windowManager != null ? windowManager.getDefaultDisplay().getRefreshRate() : 0;
+            if (refreshRate > 0) {
+                mFrameIntervalNanos = (long) (1e9 / refreshRate);
+            }
+        }
+        if (mMetrics != null) {
+            mMetrics.setFrameIntervalNanos(mFrameIntervalNanos);
+        }
+    }
+
+    /**
+     * Enables adaptive quality. When animation loop misses frames, gauge steps down: oil can
+     * stops blinking, then arrow and sectors lose antialiasing, then arrow is stepped on every
+     * second frame. Quality steps back up when frames are on time again. Dial is drawn from
+     * cached bitmap at any level. Disabled by default.
+     */
+    public void setAdaptiveQualityEnabled(boolean adaptiveQualityEnabled){
+        if (adaptiveQualityEnabled) {
+            if (mQualityController == null) {
+                mQualityController = new AdaptiveQualityController();
+            }
+        } else {
+            mQualityController = null;
+        }
+        applyQualityLevel();
+    }
+
+    public boolean isAdaptiveQualityEnabled(){
+        return mQualityController != null;
+    }
+
+    /**
+     * @return current adaptive quality level, 0 is full quality and 3 is the lowest one.
+     *         Always 0 if adaptive quality is disabled.
+     */
+    public int getAdaptiveQualityLevel(){
+        return mQualityController != null ? mQualityController.getLevel() : AdaptiveQualityController.LEVEL_FULL;
+    }
+
+    private void applyQualityLevel(){
+        int previousLevel = mAppliedQualityLevel;
+        mAppliedQualityLevel = getAdaptiveQualityLevel();
+        if ((previousLevel >= AdaptiveQualityController.LEVEL_NO_ANTI_ALIAS)
+                != (mAppliedQualityLevel >= AdaptiveQualityController.LEVEL_NO_ANTI_ALIAS)) {
+            mArrowAndSectorsLayerRenderer.setAntiAlias(mAppliedQualityLevel < AdaptiveQualityController.LEVEL_NO_ANTI_ALIAS);
+            invalidateArrowAndSectorsLayer();
+        }
+        if ((previousLevel >= AdaptiveQualityController.LEVEL_NO_BLINK)
+                != (mAppliedQualityLevel >= AdaptiveQualityController.LEVEL_NO_BLINK)) {
+            // blinking is stopped or restarted by the next draw
+            invalidateOilCanAndLevelLayer();
+        }
+    }
+
+    /**
+     * @param gaugeHost shared frame clock to step this gauge together with other gauges in one
+     *                  frame callback, or null to use own frame callback (default).
+     */
+    public void setGaugeHost(GaugeHost gaugeHost){
+        boolean isFrameScheduled = isSwitchedOn && !isAnimatorParked;
+        if (isFrameScheduled) {
+            cancelNextFrame();
+        }
+        mGaugeHost = gaugeHost;
+        if (isFrameScheduled) {
+            scheduleNextFrame();
+        }
+    }
+
+    /**
+     * @param gaugeRecorder recorder every animation frame is written to, or null to stop
+     *                      recording. Recorder is not closed by this view.
+     */
+    public void setGaugeRecorder(GaugeRecorder gaugeRecorder){
+        mTicker.setGaugeRecorder(gaugeRecorder);
+    }
+
+    /**
+     * @param gaugePlayer trace player which drives arrow and energy level instead of pedals,
+     *                    or null to stop playback. Only speed and energy level are played back,
+     *                    recorded pedals can be read from player. {@link #releaseTargetSpeed()}
+     *                    stops playback and returns control to pedals. Player is not closed by
+     *                    this view.
+     */
+    public void setGaugePlayer(GaugePlayer gaugePlayer){
+        mTicker.setGaugePlayer(gaugePlayer);
+        wakeAnimator();
+    }
+
+    /**
+     * @param latencyWindowMs delay between sample timestamp and time it is shown. It should be
+     *                        bigger than interval between samples (plus jitter), otherwise arrow
+     *                        stops at newest sample while waiting for the next one. 250 ms by default.
+     */
+    public void setSpeedSamplesLatencyWindow(long latencyWindowMs){
+        if (latencyWindowMs >= 0) {
+            mTicker.setSampleLatencyWindowNanos(latencyWindowMs * 1000000);
+        } else {
+            throw new IllegalArgumentException("Latency window must not be negative, found " + latencyWindowMs);
+        }
     }
 
     public void pressTrottlePedal(){
-        isTrottlePedalPressed = true;
+        mEngine.pressTrottlePedal();
+        wakeAnimator();
     }
 
     public void releaseTrottlePedal(){
-        isTrottlePedalPressed = false;
+        mEngine.releaseTrottlePedal();
     }
 
     public void pressBrakePedal(){
-        isBrakePedalPressed = true;
+        mEngine.pressBrakePedal();
+        wakeAnimator();
     }
 
     public void releaseBrakePedal(){
-        isBrakePedalPressed= false;
+        mEngine.releaseBrakePedal();
     }
 
     public void switchOn(){
+        if (isSwitchedOn) {
+            return;
+        }
         isSwitchedOn = true;
-        post(animator);
+        // loop starts now, or when gauge is shown if it is suspended
+        isAnimatorParked = true;
+        wakeAnimator();
     }
 
     public void switchOff(){
         isSwitchedOn = false;
+        isAnimatorParked = false;
+        cancelNextFrame();
     }
 
     public void setOnSpeedChangeListener(SpeedChangeListener speedChangeListener){
-        mSpeedChangeListenerList.add(speedChangeListener);
+        synchronized (mSpeedChangeListenerList) {
+            mSpeedChangeListenerList.add(speedChangeListener);
+            updateSpeedChangeListeners();
+        }
+    }
+
+    public void removeOnSpeedChangeListener(SpeedChangeListener speedChangeListener){
+        synchronized (mSpeedChangeListenerList) {
+            mSpeedChangeListenerList.remove(speedChangeListener);
+            updateSpeedChangeListeners();
+        }
+    }
+
+    // called with list locked, so snapshots are published in order of changes
+    private void updateSpeedChangeListeners(){
+        mSpeedChangeDispatcher.setListeners(mSpeedChangeListenerList.toArray(new SpeedChangeListener[mSpeedChangeListenerList.size()]));
     }
 
     public interface SpeedChangeListener {
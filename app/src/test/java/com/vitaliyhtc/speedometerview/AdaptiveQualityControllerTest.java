@@ -0,0 +1,55 @@
+package com.vitaliyhtc.speedometerview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test of adaptive quality levels, runs on development machine (host).
+ */
+public class AdaptiveQualityControllerTest {
+
+    private static final long FRAME_NANOS = 16000000L;
+
+    @Test
+    public void onFrame_stepsDownOnMissedFramesUpToLowestLevel() throws Exception {
+        AdaptiveQualityController controller = new AdaptiveQualityController();
+
+        for (int level = 1; level <= AdaptiveQualityController.LEVEL_HALF_TICK_RATE; level++) {
+            boolean isChanged = false;
+            for (int i = 0; i < AdaptiveQualityController.STEP_DOWN_MISSED_FRAMES; i++) {
+                isChanged = controller.onFrame(2 * FRAME_NANOS, FRAME_NANOS);
+            }
+            assertTrue(isChanged);
+            assertEquals(level, controller.getLevel());
+        }
+
+        for (int i = 0; i < AdaptiveQualityController.STEP_DOWN_MISSED_FRAMES; i++) {
+            assertFalse(controller.onFrame(2 * FRAME_NANOS, FRAME_NANOS));
+        }
+        assertEquals(AdaptiveQualityController.LEVEL_HALF_TICK_RATE, controller.getLevel());
+    }
+
+    @Test
+    public void onFrame_stepsUpOnlyAfterCleanWindows() throws Exception {
+        AdaptiveQualityController controller = new AdaptiveQualityController();
+        for (int i = 0; i < AdaptiveQualityController.STEP_DOWN_MISSED_FRAMES; i++) {
+            controller.onFrame(3 * FRAME_NANOS, FRAME_NANOS);
+        }
+        assertEquals(AdaptiveQualityController.LEVEL_NO_BLINK, controller.getLevel());
+
+        int cleanFrames = AdaptiveQualityController.WINDOW_FRAMES * AdaptiveQualityController.STEP_UP_CLEAN_WINDOWS;
+        for (int i = 0; i < cleanFrames - 1; i++) {
+            // vsync jitter isn't a missed frame
+            assertFalse(controller.onFrame(FRAME_NANOS + FRAME_NANOS / 4, FRAME_NANOS));
+        }
+        assertEquals(AdaptiveQualityController.LEVEL_NO_BLINK, controller.getLevel());
+        assertTrue(controller.onFrame(FRAME_NANOS, FRAME_NANOS));
+        assertEquals(AdaptiveQualityController.LEVEL_FULL, controller.getLevel());
+
+        // nothing to step up to
+        for (int i = 0; i < cleanFrames; i++) {
+            assertFalse(controller.onFrame(FRAME_NANOS, FRAME_NANOS));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.vitaliyhtc.speedometerview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Local unit test, runs on development machine (host). Checks that steady state animation tick
+ * of gauge doesn't allocate, GC pauses on small heaps are the main cause of jank. It runs the
+ * same {@link GaugeTicker}, oil can animation state and arrow frame lookup SpeedometerView
+ * uses on every frame. Drawing needs real Canvas, whole frame of the view is checked by
+ * instrumentation FrameDrawAllocationTest.
+ */
+public class FrameAllocationTest {
+
+    private static final int WARM_UP_FRAMES = 20000;
+    private static final int MEASURED_FRAMES = 10000;
+    private static final int MAXIMUM_MEASURED_ROUNDS = 5;
+    private static final long FRAME_NANOS = 16666667L;
+    private static final int MAXIMUM_SPEED = 240;
+
+    private com.sun.management.ThreadMXBean mThreadMXBean;
+
+    private final SpeedometerEngine mEngine = new SpeedometerEngine();
+    private final SpeedSampleBuffer mSampleBuffer = new SpeedSampleBuffer(64);
+    private final SpeedChangeDispatcher mSpeedChangeDispatcher = new SpeedChangeDispatcher();
+    private final GaugeTicker mTicker = new GaugeTicker(mEngine, mSampleBuffer, mSpeedChangeDispatcher);
+    private final OilCanAnimationState mOilCanAnimationState = new OilCanAnimationState();
+    private final FrameLruCache<Object> mFrames = new FrameLruCache<>(ArrowFrameCache.ANGLE_STEPS_COUNT, 1000);
+    private final long[] mTimestamps = new long[1];
+    private final float[] mSpeeds = new float[1];
+    private final float[] mEnergyLevels = new float[1];
+    private long mFrameTimeNanos;
+    private int mNotifiedSpeedSum;
+    private int mOilCanChanges;
+    private int mOilCanAlphaSum;
+
+    @Before
+    public void setUp() throws Exception {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        mThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        assumeTrue(mThreadMXBean.isThreadAllocatedMemorySupported());
+        mThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        for (int i = 0; i < 10; i++) {
+            mFrames.put(i * (ArrowFrameCache.ANGLE_STEPS_COUNT / 10), new Object(), 1);
+        }
+        mSpeedChangeDispatcher.setListeners(new SpeedometerView.SpeedChangeListener[]{
+                new SpeedometerView.SpeedChangeListener() {
+                    @Override
+                    public void onSpeedChanged(int value) {
+                        mNotifiedSpeedSum += value;
+                    }
+                }
+        });
+        mEngine.setMaximumSpeed(MAXIMUM_SPEED);
+        mTicker.setSampleLatencyWindowNanos(FRAME_NANOS);
+    }
+
+    @Test
+    public void animationTick_doesNotAllocate() throws Exception {
+        tickFrames(WARM_UP_FRAMES);
+
+        long threadId = Thread.currentThread().getId();
+        // first call can allocate by itself, fixed overhead of a call is measured once
+        mThreadMXBean.getThreadAllocatedBytes(threadId);
+        long overheadBefore = mThreadMXBean.getThreadAllocatedBytes(threadId);
+        long overhead = mThreadMXBean.getThreadAllocatedBytes(threadId) - overheadBefore;
+
+        // One-time allocations of JVM itself (e.g. JIT compilation) can land in a round, so round
+        // is measured again. Allocation on every frame, or every few frames, fails all rounds.
+        long allocated = 0;
+        for (int round = 0; round < MAXIMUM_MEASURED_ROUNDS; round++) {
+            long allocatedBefore = mThreadMXBean.getThreadAllocatedBytes(threadId);
+            tickFrames(MEASURED_FRAMES);
+            allocated = mThreadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore - overhead;
+            if (allocated == 0) {
+                break;
+            }
+        }
+
+        assertEquals("Animation ticks allocated " + allocated + " bytes", 0, allocated);
+        // listeners were notified and oil can animations were started and stopped
+        assertTrue(mNotifiedSpeedSum > 0);
+        assertTrue((mOilCanChanges & OilCanAnimationState.START_GREEN_TO_RED) != 0);
+        assertTrue((mOilCanChanges & OilCanAnimationState.START_RED_TO_GREEN) != 0);
+        assertTrue((mOilCanChanges & OilCanAnimationState.STOP_BLINK) != 0);
+        assertTrue(mOilCanAlphaSum > 0);
+    }
+
+    // Warm up and measurement run the same loop, so JIT doesn't compile a new one while measured.
+    private void tickFrames(int count) {
+        for (int i = 0; i < count; i++) {
+            tick(i);
+        }
+    }
+
+    // Frame of SpeedometerView: tick, then drawing of changed layers. Target speed goes up
+    // and down, energy level goes down and is refilled.
+    private void tick(int frame) {
+        mFrameTimeNanos += FRAME_NANOS;
+
+        mTimestamps[0] = mFrameTimeNanos;
+        mSpeeds[0] = frame % 240;
+        mEnergyLevels[0] = 100 - frame % 100;
+        mSampleBuffer.submit(mTimestamps, mSpeeds, mEnergyLevels, 0, 1);
+        mTicker.onExternalInput();
+        mTicker.tick(mFrameTimeNanos);
+
+        mOilCanChanges |= mOilCanAnimationState.update(mEngine.getEnergyLevel(), true);
+        mOilCanAlphaSum += OilCanAnimationState.getBlinkAlpha((frame % 30) / 30f);
+
+        float angle = (float) SpeedometerMath.radiansToDegrees(SpeedometerMath.getArrowAngle(
+                mEngine.getSpeed(), MAXIMUM_SPEED, MAXIMUM_SPEED / SpeedometerMath.getRevalidatedSpeedNotchingInterval(MAXIMUM_SPEED)));
+        mFrames.get(ArrowFrameCache.getAngleStep(angle));
+    }
+}
@@ -0,0 +1,89 @@
+package com.vitaliyhtc.speedometerview;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test of int keyed LRU cache, runs on development machine (host).
+ */
+public class FrameLruCacheTest {
+
+    private final List<String> mRemoved = new ArrayList<>();
+
+    private FrameLruCache<String> createCache(int keyCount, long maxSizeBytes) {
+        return new FrameLruCache<String>(keyCount, maxSizeBytes) {
+            @Override
+            protected void onEntryRemoved(String value) {
+                mRemoved.add(value);
+            }
+        };
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsedOverBudget() throws Exception {
+        FrameLruCache<String> cache = createCache(10, 30);
+        cache.put(1, "a", 10);
+        cache.put(2, "b", 10);
+        cache.put(3, "c", 10);
+
+        // "a" becomes the most recently used, so "b" is evicted
+        assertEquals("a", cache.get(1));
+        cache.put(4, "d", 10);
+
+        assertNull(cache.get(2));
+        assertEquals("a", cache.get(1));
+        assertEquals("c", cache.get(3));
+        assertEquals("d", cache.get(4));
+        assertEquals(30, cache.getSizeBytes());
+        assertEquals(3, cache.getCount());
+        assertEquals(1, mRemoved.size());
+        assertEquals("b", mRemoved.get(0));
+    }
+
+    @Test
+    public void put_replacesValueOfSameKey() throws Exception {
+        FrameLruCache<String> cache = createCache(4, 100);
+        cache.put(0, "a", 10);
+        cache.put(0, "b", 20);
+
+        assertEquals("b", cache.get(0));
+        assertEquals(20, cache.getSizeBytes());
+        assertEquals(1, mRemoved.size());
+        assertEquals("a", mRemoved.get(0));
+    }
+
+    @Test
+    public void put_doesNotCacheValueBiggerThanBudget() throws Exception {
+        FrameLruCache<String> cache = createCache(4, 10);
+        cache.put(0, "a", 5);
+        cache.put(1, "b", 11);
+
+        assertNull(cache.get(1));
+        assertEquals("a", cache.get(0));
+        assertEquals(1, mRemoved.size());
+        assertEquals("b", mRemoved.get(0));
+    }
+
+    @Test
+    public void trimToSize_evictsOldestFirst() throws Exception {
+        FrameLruCache<String> cache = createCache(4, 100);
+        cache.put(0, "a", 10);
+        cache.put(1, "b", 10);
+        cache.put(2, "c", 10);
+
+        cache.trimToSize(15);
+        assertEquals(10, cache.getSizeBytes());
+        assertEquals("c", cache.get(2));
+        assertEquals("a", mRemoved.get(0));
+        assertEquals("b", mRemoved.get(1));
+
+        cache.clear();
+        assertEquals(0, cache.getSizeBytes());
+        assertEquals(0, cache.getCount());
+        assertNull(cache.get(2));
+    }
+}
@@ -0,0 +1,69 @@
+package com.vitaliyhtc.speedometerview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test of frame requests of shared gauge host, runs on development machine (host).
+ */
+public class GaugeFrameQueueTest {
+
+    private static class CountingEntry extends GaugeFrameQueue.Entry {
+        int mFrameCount;
+
+        @Override
+        void onFrame(long frameTimeNanos) {
+            mFrameCount++;
+        }
+    }
+
+    private final GaugeFrameQueue mQueue = new GaugeFrameQueue();
+
+    @Test
+    public void requestCancelRequest_stepsGaugeOncePerFrame() throws Exception {
+        CountingEntry entry = new CountingEntry();
+        mQueue.request(entry);
+        mQueue.cancel(entry);
+        mQueue.request(entry);
+
+        mQueue.dispatchFrame(1);
+        assertEquals(1, entry.mFrameCount);
+
+        mQueue.dispatchFrame(2);
+        assertEquals(1, entry.mFrameCount);
+    }
+
+    @Test
+    public void cancel_skipsGaugeOnNextFrame() throws Exception {
+        CountingEntry entry = new CountingEntry();
+        mQueue.request(entry);
+        mQueue.cancel(entry);
+
+        mQueue.dispatchFrame(1);
+        assertEquals(0, entry.mFrameCount);
+    }
+
+    @Test
+    public void requestWhileStepped_goesToNextFrame() throws Exception {
+        final CountingEntry other = new CountingEntry();
+        GaugeFrameQueue.Entry entry = new GaugeFrameQueue.Entry() {
+            @Override
+            void onFrame(long frameTimeNanos) {
+                mQueue.request(this);
+                // wakes gauge stepped later in the same frame
+                mQueue.request(other);
+            }
+        };
+        mQueue.request(entry);
+        mQueue.request(other);
+
+        mQueue.dispatchFrame(1);
+        assertEquals(1, other.mFrameCount);
+        assertTrue(entry.isQueued);
+        assertFalse(other.isQueued);
+
+        mQueue.dispatchFrame(2);
+        assertEquals(1, other.mFrameCount);
+    }
+}
@@ -0,0 +1,71 @@
+package com.vitaliyhtc.speedometerview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test of frame time metrics and their histograms, runs on development machine (host).
+ */
+public class GaugeMetricsTest {
+
+    private static final long FRAME_NANOS = 16000000L;
+
+    @Test
+    public void histogram_putsDurationsIntoPowerOfTwoMicrosecondBuckets() throws Exception {
+        DurationHistogram histogram = new DurationHistogram();
+        histogram.record(500);      // < 1 us
+        histogram.record(1500);     // [1, 2) us
+        histogram.record(3000000);  // [2048, 4096) us
+
+        assertEquals(1, histogram.getBucketCount(0));
+        assertEquals(1, histogram.getBucketCount(1));
+        assertEquals(1, histogram.getBucketCount(12));
+        assertEquals(3, histogram.getCount());
+        assertEquals(3000000, histogram.getMaximumNanos());
+        assertEquals(1000, histogram.getPercentileNanos(0));
+        assertEquals(2000, histogram.getPercentileNanos(50));
+        assertEquals(3000000, histogram.getPercentileNanos(100));
+
+        DurationHistogram copy = new DurationHistogram();
+        histogram.copyTo(copy);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileNanos(50));
+        assertEquals(3, copy.getCount());
+        assertEquals(1, copy.getBucketCount(12));
+    }
+
+    @Test
+    public void histogram_keepsVeryLongDurationsInLastBucket() throws Exception {
+        DurationHistogram histogram = new DurationHistogram();
+        histogram.record(Long.MAX_VALUE / 2);
+
+        assertEquals(1, histogram.getBucketCount(DurationHistogram.BUCKET_COUNT - 1));
+        assertEquals(Long.MAX_VALUE, DurationHistogram.getBucketUpperBoundNanos(DurationHistogram.BUCKET_COUNT - 1));
+    }
+
+    @Test
+    public void recordTick_countsMissedFrameIntervalsAsDropped() throws Exception {
+        GaugeMetrics metrics = new GaugeMetrics();
+        metrics.setFrameIntervalNanos(FRAME_NANOS);
+
+        long frameTime = 1000000000L;
+        metrics.recordTick(frameTime, 0, FRAME_NANOS, 1000);
+        // on time, with jitter
+        metrics.recordTick(frameTime + FRAME_NANOS + 2000000, frameTime, FRAME_NANOS, 1000);
+        frameTime += FRAME_NANOS + 2000000;
+        // two frames missed
+        metrics.recordTick(frameTime + 3 * FRAME_NANOS, frameTime, FRAME_NANOS, 1000);
+
+        assertEquals(3, metrics.getFrameCount());
+        assertEquals(2, metrics.getDroppedFrameCount());
+        assertEquals(3, metrics.getTickHistogram().getCount());
+        assertEquals(2, metrics.getTickLatenessHistogram().getCount());
+        assertEquals(2 * FRAME_NANOS, metrics.getTickLatenessHistogram().getMaximumNanos());
+
+        metrics.reset();
+        assertEquals(0, metrics.getFrameCount());
+        assertEquals(0, metrics.getDroppedFrameCount());
+    }
+}
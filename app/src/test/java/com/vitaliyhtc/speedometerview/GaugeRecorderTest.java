@@ -0,0 +1,79 @@
+package com.vitaliyhtc.speedometerview;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test of trace recording and playback, runs on development machine (host).
+ */
+public class GaugeRecorderTest {
+
+    private static final float DELTA = 0.0001f;
+    private static final long MS = 1000000;
+
+    private File mFile;
+
+    @Before
+    public void setUp() throws Exception {
+        mFile = File.createTempFile("gauge", ".trace");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mFile.delete();
+    }
+
+    @Test
+    public void recordedTrace_isPlayedBack() throws Exception {
+        GaugeRecorder recorder = new GaugeRecorder(mFile);
+        // more records than fit into recorder buffer, recorded faster than frames come, so
+        // writer is waited for to not drop any
+        for (int i = 0; i < 10000; i++) {
+            recorder.record(5000 * MS + i * 10 * MS, i % 120, 100 - i / 100f, i % 2 == 0, i % 3 == 0);
+            if (i % 1000 == 0) {
+                recorder.awaitPendingBuffer();
+            }
+        }
+        assertEquals(0, recorder.getDroppedRecordCount());
+        recorder.close();
+
+        GaugePlayer player = new GaugePlayer(mFile);
+        assertEquals(10000, player.getRecordCount());
+        assertEquals(99990, player.getDurationMs());
+
+        player.advance(0.025f);
+        assertEquals(2, player.getSpeed(), DELTA);
+        assertEquals(99.98f, player.getEnergyLevel(), DELTA);
+        assertTrue(player.isTrottlePedalPressed());
+        assertFalse(player.isBrakePedalPressed());
+
+        player.setSpeedFactor(10);
+        player.advance(1);
+        assertEquals(1002 % 120, player.getSpeed(), DELTA);
+
+        player.seekTo(50000);
+        assertEquals(5000 % 120, player.getSpeed(), DELTA);
+        assertFalse(player.isFinished());
+
+        player.advance(10);
+        assertTrue(player.isFinished());
+        assertEquals(9999 % 120, player.getSpeed(), DELTA);
+        player.close();
+    }
+
+    @Test(expected = IOException.class)
+    public void player_rejectsOtherFiles() throws Exception {
+        FileOutputStream outputStream = new FileOutputStream(mFile);
+        outputStream.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+        outputStream.close();
+
+        new GaugePlayer(mFile);
+    }
+}
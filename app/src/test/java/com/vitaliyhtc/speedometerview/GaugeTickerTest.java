@@ -0,0 +1,73 @@
+package com.vitaliyhtc.speedometerview;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test of animation tick, runs on development machine (host).
+ */
+public class GaugeTickerTest {
+
+    private static final float DELTA = 0.0001f;
+    private static final long FRAME_NANOS = 16666667L;
+
+    private final SpeedometerEngine mEngine = new SpeedometerEngine();
+    private final GaugeTicker mTicker = new GaugeTicker(mEngine, new SpeedSampleBuffer(16), new SpeedChangeDispatcher());
+    private long mFrameTimeNanos;
+    private File mFile;
+
+    @Before
+    public void setUp() throws Exception {
+        mEngine.setMaximumSpeed(240);
+        mFile = File.createTempFile("gauge", ".trace");
+        GaugeRecorder recorder = new GaugeRecorder(mFile);
+        for (int i = 0; i < 100; i++) {
+            recorder.record(i * FRAME_NANOS, 50, 80, false, false);
+        }
+        recorder.close();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mFile.delete();
+    }
+
+    @Test
+    public void releaseTargetSpeed_stopsPlayback() throws Exception {
+        GaugePlayer player = new GaugePlayer(mFile);
+        mTicker.setGaugePlayer(player);
+        tick();
+        tick();
+        assertEquals(50, mEngine.getSpeed(), DELTA);
+
+        mEngine.releaseTargetSpeed();
+        tick();
+        mEngine.setSpeed(10);
+        tick();
+        tick();
+        assertEquals(10, mEngine.getSpeed(), DELTA);
+        player.close();
+    }
+
+    @Test
+    public void playerSetAfterRelease_isPlayed() throws Exception {
+        mEngine.setTargetSpeed(20);
+        mEngine.releaseTargetSpeed();
+        GaugePlayer player = new GaugePlayer(mFile);
+        mTicker.setGaugePlayer(player);
+        tick();
+        tick();
+        assertEquals(50, mEngine.getSpeed(), DELTA);
+        player.close();
+    }
+
+    private void tick() {
+        mFrameTimeNanos += FRAME_NANOS;
+        mTicker.tick(mFrameTimeNanos);
+    }
+}
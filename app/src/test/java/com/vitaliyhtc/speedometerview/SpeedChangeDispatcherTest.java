@@ -0,0 +1,51 @@
+package com.vitaliyhtc.speedometerview;
+
+import org.junit.Test;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test of speed change dispatch, runs on development machine (host).
+ */
+public class SpeedChangeDispatcherTest {
+
+    private int mNotifiedSpeed = -1;
+    private int mRejectedCount;
+
+    private final SpeedometerView.SpeedChangeListener mListener = new SpeedometerView.SpeedChangeListener() {
+        @Override
+        public void onSpeedChanged(int value) {
+            mNotifiedSpeed = value;
+        }
+    };
+
+    @Test
+    public void dispatch_afterRejectedExecution_isScheduledAgain() throws Exception {
+        SpeedChangeDispatcher dispatcher = new SpeedChangeDispatcher();
+        dispatcher.setListeners(new SpeedometerView.SpeedChangeListener[]{mListener});
+        dispatcher.setExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                if (mRejectedCount == 0) {
+                    mRejectedCount++;
+                    throw new RejectedExecutionException();
+                }
+                command.run();
+            }
+        });
+
+        try {
+            dispatcher.dispatch(10, 1, false);
+            fail();
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+        assertEquals(-1, mNotifiedSpeed);
+
+        dispatcher.dispatch(20, 2, false);
+        assertEquals(20, mNotifiedSpeed);
+    }
+}
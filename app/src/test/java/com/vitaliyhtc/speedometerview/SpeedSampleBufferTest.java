@@ -0,0 +1,102 @@
+package com.vitaliyhtc.speedometerview;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test of samples ring buffer, runs on development machine (host).
+ */
+public class SpeedSampleBufferTest {
+
+    private static final float DELTA = 0.0001f;
+
+    private final float[] mOut = new float[2];
+
+    @Test
+    public void sample_emptyBufferReturnsFalse() throws Exception {
+        SpeedSampleBuffer buffer = new SpeedSampleBuffer(4);
+
+        assertTrue(buffer.isEmpty());
+        assertFalse(buffer.sample(100, mOut));
+    }
+
+    @Test
+    public void sample_interpolatesBetweenSamples() throws Exception {
+        SpeedSampleBuffer buffer = new SpeedSampleBuffer(4);
+        buffer.submit(new long[]{100, 200}, new float[]{10, 30}, new float[]{50, 40}, 0, 2);
+
+        assertTrue(buffer.sample(150, mOut));
+        assertEquals(20, mOut[SpeedSampleBuffer.SPEED], DELTA);
+        assertEquals(45, mOut[SpeedSampleBuffer.ENERGY_LEVEL], DELTA);
+    }
+
+    @Test
+    public void sample_holdsOldestAndNewestOutsideOfRange() throws Exception {
+        SpeedSampleBuffer buffer = new SpeedSampleBuffer(4);
+        buffer.submit(new long[]{100, 200}, new float[]{10, 30}, null, 0, 2);
+
+        buffer.sample(50, mOut);
+        assertEquals(10, mOut[SpeedSampleBuffer.SPEED], DELTA);
+        assertTrue(Float.isNaN(mOut[SpeedSampleBuffer.ENERGY_LEVEL]));
+
+        buffer.sample(500, mOut);
+        assertEquals(30, mOut[SpeedSampleBuffer.SPEED], DELTA);
+    }
+
+    @Test
+    public void submit_overwritesOldestAndSkipsStaleSamples() throws Exception {
+        SpeedSampleBuffer buffer = new SpeedSampleBuffer(3);
+        long[] timestamps = new long[]{100, 200, 300, 400, 500, 450};
+        float[] speeds = new float[]{1, 2, 3, 4, 5, 6};
+
+        assertEquals(5, buffer.submit(timestamps, speeds, null, 0, 6));
+        assertEquals(500, buffer.getNewestTimestamp());
+
+        // capacity is rounded up to 4, so samples 100 is lost and 200 is the oldest one
+        buffer.sample(0, mOut);
+        assertEquals(2, mOut[SpeedSampleBuffer.SPEED], DELTA);
+        buffer.sample(450, mOut);
+        assertEquals(4.5f, mOut[SpeedSampleBuffer.SPEED], DELTA);
+    }
+
+    @Test
+    public void sample_neverMixesValuesOfConcurrentWrites() throws Exception {
+        // small buffer, so writer overwrites slots reader is reading
+        final SpeedSampleBuffer buffer = new SpeedSampleBuffer(4);
+        final AtomicBoolean isRunning = new AtomicBoolean(true);
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                long[] timestamps = new long[8];
+                float[] speeds = new float[8];
+                float[] energyLevels = new float[8];
+                long timestamp = 0;
+                while (isRunning.get()) {
+                    for (int i = 0; i < timestamps.length; i++) {
+                        timestamp += 10;
+                        timestamps[i] = timestamp;
+                        // energy level is always negated speed of the same write
+                        speeds[i] = timestamp % 1000;
+                        energyLevels[i] = -speeds[i];
+                    }
+                    buffer.submit(timestamps, speeds, energyLevels, 0, timestamps.length);
+                }
+            }
+        });
+        writer.start();
+        try {
+            for (int i = 0; i < 200000; i++) {
+                long newestTimestamp = buffer.getNewestTimestamp();
+                if (buffer.sample(newestTimestamp - 15, mOut)) {
+                    assertEquals(-mOut[SpeedSampleBuffer.SPEED], mOut[SpeedSampleBuffer.ENERGY_LEVEL], 0);
+                }
+            }
+        } finally {
+            isRunning.set(false);
+            writer.join();
+        }
+    }
+}
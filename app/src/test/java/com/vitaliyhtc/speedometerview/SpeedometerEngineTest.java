@@ -0,0 +1,183 @@
+package com.vitaliyhtc.speedometerview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test of pedals simulation, runs on development machine (host).
+ */
+public class SpeedometerEngineTest {
+
+    private static final float DELTA = 0.0001f;
+
+    private SpeedometerEngine mEngine;
+
+    @Before
+    public void setUp() throws Exception {
+        mEngine = new SpeedometerEngine();
+        mEngine.setMaximumSpeed(120);
+        mEngine.setAccelerationSpeed(30);
+        mEngine.setAttenuationSpeed(2);
+        mEngine.setEnergyLevelChangeSpeed(10);
+        mEngine.setEnergyLevel(100);
+    }
+
+    @Test
+    public void trottle_acceleratesAndConsumesEnergyPerSecond() throws Exception {
+        mEngine.pressTrottlePedal();
+        mEngine.step(0.5f);
+
+        assertEquals(15, mEngine.getSpeed(), DELTA);
+        assertEquals(95, mEngine.getEnergyLevel(), DELTA);
+    }
+
+    @Test
+    public void step_doesNotDependOnFrameRate() throws Exception {
+        SpeedometerEngine other = new SpeedometerEngine();
+        other.setMaximumSpeed(120);
+        other.setAccelerationSpeed(30);
+        other.pressTrottlePedal();
+        mEngine.pressTrottlePedal();
+
+        for (int i = 0; i < 60; i++) {
+            mEngine.step(1f / 60);
+        }
+        for (int i = 0; i < 120; i++) {
+            other.step(1f / 120);
+        }
+
+        assertEquals(30, mEngine.getSpeed(), 0.01f);
+        assertEquals(mEngine.getSpeed(), other.getSpeed(), 0.01f);
+    }
+
+    @Test
+    public void brake_deceleratesTwiceAsFastAndStopsAtZero() throws Exception {
+        mEngine.setSpeed(60);
+        mEngine.pressBrakePedal();
+        mEngine.step(0.5f);
+        assertEquals(30, mEngine.getSpeed(), DELTA);
+
+        mEngine.step(10);
+        assertEquals(0, mEngine.getSpeed(), DELTA);
+    }
+
+    @Test
+    public void speed_isLimitedByMaximumSpeed() throws Exception {
+        mEngine.pressTrottlePedal();
+        mEngine.step(100);
+
+        assertEquals(120, mEngine.getSpeed(), DELTA);
+        assertEquals(0, mEngine.getEnergyLevel(), DELTA);
+    }
+
+    @Test
+    public void isConverged_onlyWhenNothingCanChange() throws Exception {
+        assertTrue(mEngine.isConverged());
+
+        mEngine.pressTrottlePedal();
+        assertFalse(mEngine.isConverged());
+        mEngine.step(1);
+        mEngine.releaseTrottlePedal();
+        assertFalse(mEngine.isConverged());
+
+        mEngine.step(100);
+        assertTrue(mEngine.isConverged());
+    }
+
+    @Test
+    public void targetSpeed_newestValueWinsAndPedalsAreIgnored() throws Exception {
+        mEngine.pressTrottlePedal();
+        mEngine.setTargetSpeed(40);
+        mEngine.setTargetSpeed(55);
+        assertFalse(mEngine.isConverged());
+
+        mEngine.step(1);
+        assertEquals(55, mEngine.getSpeed(), DELTA);
+        assertEquals(100, mEngine.getEnergyLevel(), DELTA);
+        assertTrue(mEngine.isConverged());
+
+        mEngine.setTargetSpeed(500);
+        mEngine.step(0);
+        assertEquals(120, mEngine.getSpeed(), DELTA);
+    }
+
+    @Test
+    public void releaseTargetSpeed_returnsControlToPedals() throws Exception {
+        mEngine.setTargetSpeed(60);
+        mEngine.step(0);
+        mEngine.releaseTargetSpeed();
+        mEngine.step(0.5f);
+
+        assertFalse(mEngine.isTargetSpeedMode());
+        assertEquals(59, mEngine.getSpeed(), DELTA);
+    }
+
+    @Test
+    public void targetSpeed_fromOtherThreadIsNeverLost() throws Exception {
+        final int samples = 100000;
+        Thread feeder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 1; i <= samples; i++) {
+                    mEngine.setTargetSpeed(i % 100);
+                }
+                mEngine.setTargetSpeed(77);
+            }
+        });
+        feeder.start();
+        while (feeder.isAlive()) {
+            mEngine.step(0.01f);
+        }
+        feeder.join();
+        mEngine.step(0.01f);
+
+        assertEquals(77, mEngine.getSpeed(), DELTA);
+    }
+
+    @Test
+    public void targetSpeedWithEpoch_isDroppedAfterRelease() throws Exception {
+        int releaseEpoch = mEngine.getReleaseEpoch();
+        mEngine.releaseTargetSpeed();
+
+        assertFalse(mEngine.setTargetSpeed(60, releaseEpoch));
+        mEngine.step(0);
+        assertFalse(mEngine.isTargetSpeedMode());
+
+        assertTrue(mEngine.setTargetSpeed(60, mEngine.getReleaseEpoch()));
+        mEngine.step(0);
+        assertTrue(mEngine.isTargetSpeedMode());
+    }
+
+    @Test
+    public void targetSpeedWithEpoch_valueReadBeforeConcurrentReleaseIsNeverApplied() throws Exception {
+        for (int trial = 0; trial < 500; trial++) {
+            final SpeedometerEngine engine = new SpeedometerEngine();
+            engine.setMaximumSpeed(120);
+            // stands for samples buffer, cleared before release as SpeedometerView does
+            final AtomicBoolean hasSource = new AtomicBoolean(true);
+            Thread releaser = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    hasSource.set(false);
+                    engine.releaseTargetSpeed();
+                }
+            });
+            releaser.start();
+            while (releaser.isAlive()) {
+                int releaseEpoch = engine.getReleaseEpoch();
+                if (hasSource.get()) {
+                    engine.setTargetSpeed(60, releaseEpoch);
+                }
+                engine.step(0);
+            }
+            releaser.join();
+            engine.step(0);
+
+            assertFalse(engine.isTargetSpeedMode());
+        }
+    }
+}
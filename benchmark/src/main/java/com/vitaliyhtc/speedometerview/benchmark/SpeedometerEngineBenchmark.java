@@ -0,0 +1,71 @@
+package com.vitaliyhtc.speedometerview.benchmark;
+
+import com.vitaliyhtc.speedometerview.SpeedometerEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-frame step of speed and energy level simulation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpeedometerEngineBenchmark {
+
+    private static final float FRAME_DELTA_SECONDS = 1f / 60;
+
+    private SpeedometerEngine mEngine;
+    private int mFrame;
+
+    @Setup
+    public void setUp() {
+        mEngine = new SpeedometerEngine();
+        mEngine.setMaximumSpeed(120);
+        mEngine.setAccelerationSpeed(33);
+        mEngine.setAttenuationSpeed(1.7f);
+        mEngine.setEnergyLevelChangeSpeed(10);
+        mEngine.setEnergyLevel(100);
+    }
+
+    @Benchmark
+    public float stepTrottle() {
+        mEngine.pressTrottlePedal();
+        mEngine.step(FRAME_DELTA_SECONDS);
+        if (mEngine.getSpeed() >= mEngine.getMaximumSpeed()) {
+            mEngine.setSpeed(0);
+            mEngine.setEnergyLevel(100);
+        }
+        return mEngine.getSpeed();
+    }
+
+    // trottle, brake and attenuation in turn, 64 frames each
+    @Benchmark
+    public float stepMixedPedals() {
+        int phase = (mFrame++ >>> 6) % 3;
+        if (phase == 0) {
+            mEngine.releaseBrakePedal();
+            mEngine.pressTrottlePedal();
+        } else if (phase == 1) {
+            mEngine.releaseTrottlePedal();
+            mEngine.pressBrakePedal();
+        } else {
+            mEngine.releaseBrakePedal();
+        }
+        mEngine.step(FRAME_DELTA_SECONDS);
+        return mEngine.getSpeed();
+    }
+}
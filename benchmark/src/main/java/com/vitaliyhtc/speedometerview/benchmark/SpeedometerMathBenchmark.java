@@ -0,0 +1,84 @@
+package com.vitaliyhtc.speedometerview.benchmark;
+
+import com.vitaliyhtc.speedometerview.SpeedometerMath;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calculations done by SpeedometerView layers on every frame or on every layout.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpeedometerMathBenchmark {
+
+    // same values as OilCanAndLevelLayerRenderer uses
+    private static final float[] CM_DATA_GREEN = new float[]{
+            0, 0, 0, 0, 0,
+            0, 0, 0, 0, 255,
+            0, 0, 0, 0, 0,
+            0, 0, 0, 1, 0 };
+    private static final float[] CM_DATA_RED = new float[]{
+            0, 0, 0, 0, 255,
+            0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0,
+            0, 0, 0, 1, 0 };
+
+    @Param({"120", "250", "1990"})
+    public int maximumSpeed;
+
+    private int mNotchesCount;
+    private float mSpeed;
+    private float mFraction;
+    private float[] mColorMatrix = new float[SpeedometerMath.COLOR_MATRIX_SIZE];
+
+    @Setup
+    public void setUp() {
+        mNotchesCount = maximumSpeed / SpeedometerMath.getRevalidatedSpeedNotchingInterval(maximumSpeed);
+    }
+
+    @Benchmark
+    public int revalidatedSpeedNotchingInterval() {
+        return SpeedometerMath.getRevalidatedSpeedNotchingInterval(maximumSpeed);
+    }
+
+    // ArrowAndSectorsLayerRenderer.draw(): arrow angle and both sector angles in degrees
+    @Benchmark
+    public float arrowAndSectorsAngles() {
+        mSpeed += 0.5f;
+        if (mSpeed > maximumSpeed) {
+            mSpeed = 0;
+        }
+        double startAngle = SpeedometerMath.getArrowAngle(mSpeed, maximumSpeed, mNotchesCount);
+        float sectorBeforeSweep = (float) SpeedometerMath.radiansToDegrees(startAngle);
+        float sectorAfterStart = 180 + (float) SpeedometerMath.radiansToDegrees(startAngle);
+        float sectorAfterSweep = 180 - (float) SpeedometerMath.radiansToDegrees(startAngle);
+        return sectorBeforeSweep + sectorAfterStart + sectorAfterSweep;
+    }
+
+    // step of oil can green to red color filters table
+    @Benchmark
+    public float[] colorMatrixInterpolate() {
+        mFraction += 0.01f;
+        if (mFraction > 1) {
+            mFraction = 0;
+        }
+        SpeedometerMath.interpolateColorMatrix(mFraction, CM_DATA_GREEN, CM_DATA_RED, mColorMatrix);
+        return mColorMatrix;
+    }
+}